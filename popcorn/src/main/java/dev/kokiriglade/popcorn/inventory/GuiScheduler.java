@@ -0,0 +1,78 @@
+package dev.kokiriglade.popcorn.inventory;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Schedules gui related tasks onto the thread that owns the affected state. On region-threaded servers, an entity and
+ * its open inventory are owned by the thread of the region the entity is in, so tasks for a player have to run there.
+ * On other servers, all of these run on the main thread. These methods may be called from any thread.
+ *
+ * @since 3.4.0
+ */
+public final class GuiScheduler {
+
+    /**
+     * A private constructor to prevent construction.
+     */
+    private GuiScheduler() {
+    }
+
+    /**
+     * Runs the specified task on the next tick, on the thread that owns the specified entity. If the entity is removed
+     * before the task runs, for example because the player logs out, the task is not run.
+     *
+     * @param plugin the plugin to schedule the task for
+     * @param entity the entity the task is for
+     * @param task   the task to run
+     * @since 3.4.0
+     */
+    public static void runForEntity(final @NonNull Plugin plugin, final @NonNull Entity entity, final @NonNull Runnable task) {
+        entity.getScheduler().run(plugin, scheduledTask -> task.run(), null);
+    }
+
+    /**
+     * Runs the specified task on the next tick, on the thread that owns the specified entity. If the entity is removed
+     * before the task runs, or has already been removed, the retired task is run instead, on an unspecified thread.
+     *
+     * @param plugin  the plugin to schedule the task for
+     * @param entity  the entity the task is for
+     * @param task    the task to run
+     * @param retired the task to run if the entity is removed
+     * @since 3.4.0
+     */
+    public static void runForEntity(final @NonNull Plugin plugin, final @NonNull Entity entity, final @NonNull Runnable task,
+                                    final @NonNull Runnable retired) {
+        if (entity.getScheduler().run(plugin, scheduledTask -> task.run(), retired) == null) {
+            retired.run();
+        }
+    }
+
+    /**
+     * Runs the specified task on the next tick, on the thread that owns global state. This should only be used for
+     * tasks that aren't tied to a single entity.
+     *
+     * @param plugin the plugin to schedule the task for
+     * @param task   the task to run
+     * @since 3.4.0
+     */
+    public static void runGlobally(final @NonNull Plugin plugin, final @NonNull Runnable task) {
+        Bukkit.getGlobalRegionScheduler().run(plugin, scheduledTask -> task.run());
+    }
+
+    /**
+     * Runs the specified task every {@code period} ticks, starting on the next tick, on the thread that owns global
+     * state. The task keeps running until the plugin is disabled.
+     *
+     * @param plugin the plugin to schedule the task for
+     * @param task   the task to run
+     * @param period the amount of ticks between runs
+     * @since 3.4.0
+     */
+    public static void runGloballyAtFixedRate(final @NonNull Plugin plugin, final @NonNull Runnable task, final long period) {
+        Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, scheduledTask -> task.run(), 1, period);
+    }
+
+}
@@ -1,26 +1,42 @@
 package dev.kokiriglade.popcorn.inventory;
 
+import org.bukkit.Bukkit;
 import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
- * A class for containing players and their inventory state for later use
+ * A class for containing players and their inventory state for later use. Players are kept by their {@link UUID}, so
+ * the cache doesn't hold on to the players themselves, and only the slots that held an item are stored.
  *
  * @since 3.0.0
  */
 public final class HumanEntityCache {
 
     /**
-     * A map containing the player's and their inventory contents. The ItemStack[] contains only the hot bar and
-     * inventory contents. 0-8 is the hot bar, with 9-35 being the inventory both starting in the top-left corner and
-     * continuing in reading order.
+     * The amount of slots that are stored: the hot bar and the inventory contents
      */
-    private final Map<HumanEntity, ItemStack[]> inventories = new HashMap<>();
+    private static final int SIZE = 36;
+
+    /**
+     * The journal stored inventories are recorded in, or null if they're only kept in memory
+     */
+    private static volatile @Nullable HumanEntityJournal journal;
+
+    /**
+     * A map containing the players' uuids and their inventory contents. Only the hot bar and inventory contents are
+     * stored. 0-8 is the hot bar, with 9-35 being the inventory both starting in the top-left corner and continuing in
+     * reading order.
+     */
+    private final Map<UUID, StoredInventory> inventories = new HashMap<>();
 
     /**
      * Stores this player's inventory in the cache. If the player was already stored, their cache will be overwritten.
@@ -30,11 +46,16 @@ public final class HumanEntityCache {
      * @since 3.0.0
      */
     public void storeAndClear(final @NonNull HumanEntity humanEntity) {
-        store(humanEntity);
+        final StoredInventory storedInventory = store(humanEntity.getInventory());
+
+        inventories.put(humanEntity.getUniqueId(), storedInventory);
+        record(humanEntity.getUniqueId(), storedInventory);
 
         final Inventory inventory = humanEntity.getInventory();
-        for (int i = 0; i < 36; i++) {
-            inventory.clear(i);
+
+        //empty slots don't have to be cleared
+        for (int index = 0; index < storedInventory.size; index++) {
+            inventory.clear(storedInventory.slots[index]);
         }
     }
 
@@ -51,7 +72,8 @@ public final class HumanEntityCache {
     }
 
     /**
-     * Restores all players' contents into their inventory, clearing the cache afterward.
+     * Restores all players' contents into their inventory, clearing the cache afterward. Players that are no longer
+     * online are skipped.
      *
      * @since 3.0.0
      */
@@ -76,24 +98,27 @@ public final class HumanEntityCache {
      * @since 3.0.0
      */
     public int add(final @NonNull HumanEntity humanEntity, final @NonNull ItemStack item) {
-        final ItemStack[] items = inventories.get(humanEntity);
+        final StoredInventory storedInventory = inventories.get(humanEntity.getUniqueId());
 
-        if (items == null) {
+        if (storedInventory == null) {
             throw new IllegalStateException("The human entity '%s' does not have a cached inventory".formatted(humanEntity.getUniqueId()));
         }
 
         int amountPutIn = 0;
+        int index = 0;
 
-        for (int i = 0; i < items.length; i++) {
-            final ItemStack itemStack = items[i];
+        for (int slot = 0; slot < SIZE; slot++) {
+            if (index >= storedInventory.size || storedInventory.slots[index] != slot) {
+                final ItemStack itemStack = item.clone();
 
-            if (itemStack == null) {
-                items[i] = item.clone();
-                items[i].setAmount(item.getAmount() - amountPutIn);
+                itemStack.setAmount(item.getAmount() - amountPutIn);
+                storedInventory.insert(index, slot, itemStack);
                 amountPutIn = item.getAmount();
                 break;
             }
 
+            final ItemStack itemStack = storedInventory.items[index++];
+
             if (!itemStack.isSimilar(item)) {
                 continue;
             }
@@ -108,6 +133,10 @@ public final class HumanEntityCache {
             }
         }
 
+        if (amountPutIn > 0) {
+            record(humanEntity.getUniqueId(), storedInventory);
+        }
+
         return item.getAmount() - amountPutIn;
     }
 
@@ -118,41 +147,127 @@ public final class HumanEntityCache {
      * @since 3.0.0
      */
     public void store(final @NonNull HumanEntity humanEntity) {
-        final ItemStack[] items = new ItemStack[36];
+        final StoredInventory storedInventory = store(humanEntity.getInventory());
+
+        inventories.put(humanEntity.getUniqueId(), storedInventory);
+        record(humanEntity.getUniqueId(), storedInventory);
+    }
+
+    /**
+     * Sets the journal that the inventories stored in all caches are recorded in, so they can be given back after the
+     * server stopped without restoring them. By default, stored inventories are only kept in memory.
+     *
+     * @param journal the journal, or null to stop recording stored inventories
+     * @since 3.4.0
+     */
+    public static void setJournal(final @Nullable HumanEntityJournal journal) {
+        HumanEntityCache.journal = journal;
+    }
+
+    /**
+     * Gets the journal that the inventories stored in all caches are recorded in.
+     *
+     * @return the journal, or null if stored inventories are only kept in memory
+     * @since 3.4.0
+     */
+    public static @Nullable HumanEntityJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Records the stored inventory of the specified player in the journal, if there is one.
+     *
+     * @param uuid            the uuid of the player
+     * @param storedInventory the stored inventory
+     * @since 3.4.0
+     */
+    private static void record(final @NonNull UUID uuid, final @NonNull StoredInventory storedInventory) {
+        final HumanEntityJournal journal = HumanEntityCache.journal;
+
+        if (journal != null) {
+            journal.recordStore(uuid, storedInventory.slots, storedInventory.items, storedInventory.size);
+        }
+    }
+
+    /**
+     * Records in the journal, if there is one, that the stored inventory of the specified player was forgotten.
+     *
+     * @param uuid the uuid of the player
+     * @since 3.4.0
+     */
+    private static void forget(final @NonNull UUID uuid) {
+        final HumanEntityJournal journal = HumanEntityCache.journal;
+
+        if (journal != null) {
+            journal.recordForget(uuid);
+        }
+    }
 
-        for (int i = 0; i < 36; i++) {
-            items[i] = humanEntity.getInventory().getItem(i);
+    /**
+     * Copies the items in the hot bar and inventory contents of the specified inventory.
+     *
+     * @param inventory the inventory to copy
+     * @return the copied items
+     * @since 3.4.0
+     */
+    private static @NonNull StoredInventory store(final @NonNull Inventory inventory) {
+        final StoredInventory storedInventory = new StoredInventory();
+
+        for (int slot = 0; slot < SIZE; slot++) {
+            final ItemStack item = inventory.getItem(slot);
+
+            if (!isEmpty(item)) {
+                storedInventory.insert(storedInventory.size, slot, item);
+            }
         }
 
-        inventories.put(humanEntity, items);
+        return storedInventory;
     }
 
     /**
-     * Restores the contents of the specified human entity. This method will fail silently if no cache is available. The
-     * cache will not be cleared.
+     * Restores the contents of the specified human entity. Only slots whose item differs from the stored item are
+     * written. This method will fail silently if no cache is available. The cache will not be cleared.
      *
      * @param humanEntity the human entity to restore its cache for
      * @since 3.0.0
      */
     private void restore(final @NonNull HumanEntity humanEntity) {
-        final ItemStack[] items = inventories.get(humanEntity);
+        final StoredInventory storedInventory = inventories.get(humanEntity.getUniqueId());
 
-        if (items == null) {
+        if (storedInventory == null) {
             return;
         }
 
-        for (int i = 0; i < items.length; i++) {
-            humanEntity.getInventory().setItem(i, items[i]);
+        final Inventory inventory = humanEntity.getInventory();
+        int index = 0;
+
+        for (int slot = 0; slot < SIZE; slot++) {
+            final ItemStack item = index < storedInventory.size && storedInventory.slots[index] == slot
+                ? storedInventory.items[index++]
+                : null;
+            final ItemStack current = inventory.getItem(slot);
+
+            if (isEmpty(item) ? isEmpty(current) : item.equals(current)) {
+                continue;
+            }
+
+            inventory.setItem(slot, item);
         }
     }
 
     /**
-     * Restores all players' contents into their inventory. The cache will not be cleared.
+     * Restores all online players' contents into their inventory. The cache will not be cleared.
      *
      * @since 3.0.0
      */
     private void restoreAll() {
-        inventories.keySet().forEach(this::restore);
+        for (final UUID uuid : inventories.keySet()) {
+            final Player player = Bukkit.getPlayer(uuid);
+
+            if (player != null) {
+                restore(player);
+            }
+        }
     }
 
     /**
@@ -163,7 +278,7 @@ public final class HumanEntityCache {
      * @since 3.0.0
      */
     public boolean contains(final @NonNull HumanEntity humanEntity) {
-        return this.inventories.containsKey(humanEntity);
+        return this.inventories.containsKey(humanEntity.getUniqueId());
     }
 
     /**
@@ -173,7 +288,9 @@ public final class HumanEntityCache {
      * @since 3.0.0
      */
     public void clearCache(final @NonNull HumanEntity humanEntity) {
-        inventories.remove(humanEntity);
+        if (inventories.remove(humanEntity.getUniqueId()) != null) {
+            forget(humanEntity.getUniqueId());
+        }
     }
 
     /**
@@ -182,7 +299,68 @@ public final class HumanEntityCache {
      * @since 3.0.0
      */
     private void clearCache() {
+        for (final UUID uuid : inventories.keySet()) {
+            forget(uuid);
+        }
+
         inventories.clear();
     }
 
+    /**
+     * Checks whether the specified item is empty
+     *
+     * @param item the item
+     * @return true if the item is null or empty, false otherwise
+     * @since 3.4.0
+     */
+    private static boolean isEmpty(final @Nullable ItemStack item) {
+        return item == null || item.isEmpty();
+    }
+
+    /**
+     * The non-empty slots of an inventory and their items, sorted by slot
+     *
+     * @since 3.4.0
+     */
+    private static final class StoredInventory {
+
+        /**
+         * The slots that hold an item, in ascending order
+         */
+        private int @NonNull [] slots = new int[8];
+
+        /**
+         * The item in each slot, at the same index as the slot
+         */
+        private @NonNull ItemStack @NonNull [] items = new ItemStack[8];
+
+        /**
+         * The amount of slots that hold an item
+         */
+        private int size;
+
+        /**
+         * Inserts an item at the specified index, which must keep the slots in ascending order
+         *
+         * @param index the index to insert at
+         * @param slot  the slot of the item
+         * @param item  the item
+         * @since 3.4.0
+         */
+        private void insert(final int index, final int slot, final @NonNull ItemStack item) {
+            if (size == slots.length) {
+                this.slots = Arrays.copyOf(slots, Math.min(SIZE, size * 2));
+                this.items = Arrays.copyOf(items, slots.length);
+            }
+
+            System.arraycopy(slots, index, slots, index + 1, size - index);
+            System.arraycopy(items, index, items, index + 1, size - index);
+
+            slots[index] = slot;
+            items[index] = item;
+            size++;
+        }
+
+    }
+
 }
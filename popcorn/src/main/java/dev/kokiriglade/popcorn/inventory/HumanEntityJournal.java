@@ -0,0 +1,701 @@
+package dev.kokiriglade.popcorn.inventory;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.jetbrains.annotations.Contract;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the player inventories stored in {@link HumanEntityCache}s, so players get their items back
+ * if the server stops without restoring them, e.g. because it crashed. The journal is enabled with
+ * {@link HumanEntityCache#setJournal(HumanEntityJournal)}.
+ * <p>
+ * Whenever a cache stores a player's inventory, the stored items are appended to the journal in their binary
+ * encoding; whenever the inventory is restored, this is appended as well. The journal file is memory-mapped, so
+ * appending doesn't wait for the disk. The appended records are forced to the disk in batches, by default every 100
+ * milliseconds, so a crash loses at most that much of the journal.
+ * <p>
+ * When the journal is opened, it is replayed: players whose inventory was stored but never restored get their items
+ * back once they log in, replacing the contents of their hot bar and inventory. The journal is compacted when it's
+ * opened and whenever it grows too large, so it only holds the inventories that haven't been restored yet.
+ *
+ * @since 3.4.0
+ */
+public final class HumanEntityJournal implements Listener {
+
+    /**
+     * The first bytes of a journal file
+     */
+    private static final int MAGIC = 0x50434a31;
+
+    /**
+     * The type of a record that stores an inventory
+     */
+    private static final byte STORE = 1;
+
+    /**
+     * The type of a record that forgets a stored inventory
+     */
+    private static final byte FORGET = 2;
+
+    /**
+     * The size of a record's length and checksum, which precede its payload
+     */
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+
+    /**
+     * The amount of bytes the mapped region grows by
+     */
+    private static final int REGION_SIZE = 1 << 20;
+
+    /**
+     * The minimum size at which the journal is compacted
+     */
+    private static final int COMPACTION_SIZE = 1 << 24;
+
+    /**
+     * The amount of slots that are stored, as in {@link HumanEntityCache}
+     */
+    private static final int SIZE = 36;
+
+    /**
+     * The plugin this journal belongs to
+     */
+    private final @NonNull Plugin plugin;
+
+    /**
+     * The journal file
+     */
+    private final @NonNull Path path;
+
+    /**
+     * Forces the appended records to the disk and compacts the journal
+     */
+    private final @NonNull ScheduledExecutorService flusher;
+
+    /**
+     * The latest store record of each player whose inventory hasn't been restored, in the order they were stored
+     */
+    private final @NonNull Map<UUID, byte[]> stored;
+
+    /**
+     * The players whose inventory was stored before this journal was opened, and still has to be given back
+     */
+    private final @NonNull Set<UUID> pending;
+
+    /**
+     * The open journal file
+     */
+    private @NonNull FileChannel channel;
+
+    /**
+     * The mapped region of the journal file
+     */
+    private @NonNull MappedByteBuffer buffer;
+
+    /**
+     * The position at which the next record is appended
+     */
+    private int position;
+
+    /**
+     * The range of the mapped region that has been appended to, but not yet forced to the disk
+     */
+    private int dirtyFrom = Integer.MAX_VALUE, dirtyTo;
+
+    /**
+     * The size at which the journal is compacted next
+     */
+    private int compactionSize = COMPACTION_SIZE;
+
+    /**
+     * Whether this journal has been closed
+     */
+    private boolean closed;
+
+    /**
+     * Creates a new journal. The journal file is rewritten to only contain the specified records.
+     *
+     * @param plugin        the plugin this journal belongs to
+     * @param path          the journal file
+     * @param stored        the records of the inventories that haven't been restored
+     * @param flushInterval the time between forcing appended records to the disk
+     * @throws IOException if the journal file can't be written
+     * @since 3.4.0
+     */
+    private HumanEntityJournal(final @NonNull Plugin plugin, final @NonNull Path path,
+                               final @NonNull Map<UUID, byte[]> stored, final @NonNull Duration flushInterval) throws IOException {
+        this.plugin = plugin;
+        this.path = path;
+        this.stored = stored;
+        this.pending = new HashSet<>(stored.keySet());
+
+        final int size = write(temporaryPath(), stored.values());
+
+        Files.move(temporaryPath(), path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.position = size;
+        this.compactionSize = Math.max(COMPACTION_SIZE, size * 2);
+
+        map(size);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("popcorn-inventory-journal").factory()
+        );
+
+        final long interval = flushInterval.toNanos();
+
+        this.flusher.scheduleWithFixedDelay(this::tick, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Opens the journal at the specified file, creating it if it doesn't exist. The journal is replayed, and players
+     * that are online or log in later get back the items that were stored for them but never restored. The journal
+     * is closed once the plugin is disabled.
+     *
+     * @param plugin        the plugin this journal belongs to
+     * @param path          the journal file
+     * @param flushInterval the time between forcing appended records to the disk
+     * @return the opened journal
+     * @throws IOException              if the journal file can't be read or written
+     * @throws IllegalArgumentException if the flush interval isn't positive
+     * @since 3.4.0
+     */
+    public static @NonNull HumanEntityJournal open(final @NonNull Plugin plugin, final @NonNull Path path,
+                                                   final @NonNull Duration flushInterval) throws IOException {
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+
+        final Path parent = path.toAbsolutePath().getParent();
+
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        final HumanEntityJournal journal = new HumanEntityJournal(plugin, path, replay(path), flushInterval);
+
+        Bukkit.getPluginManager().registerEvents(journal, plugin);
+
+        for (final Player player : Bukkit.getOnlinePlayers()) {
+            GuiScheduler.runForEntity(plugin, player, () -> journal.restorePending(player));
+        }
+
+        return journal;
+    }
+
+    /**
+     * Opens the journal in the data folder of the specified plugin, forcing appended records to the disk every 100
+     * milliseconds, see {@link #open(Plugin, Path, Duration)}.
+     *
+     * @param plugin the plugin this journal belongs to
+     * @return the opened journal
+     * @throws IOException if the journal file can't be read or written
+     * @since 3.4.0
+     */
+    public static @NonNull HumanEntityJournal open(final @NonNull Plugin plugin) throws IOException {
+        return open(plugin, plugin.getDataFolder().toPath().resolve("inventory-journal.bin"), Duration.ofMillis(100));
+    }
+
+    /**
+     * Gives back the items of players that log in, if their inventory was stored but never restored.
+     *
+     * @param event the event fired
+     * @since 3.4.0
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(final @NonNull PlayerJoinEvent event) {
+        restorePending(event.getPlayer());
+    }
+
+    /**
+     * Closes this journal once its plugin is disabled, after the open guis have been closed.
+     *
+     * @param event the event fired
+     * @since 3.4.0
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(final @NonNull PluginDisableEvent event) {
+        if (event.getPlugin() == this.plugin) {
+            close();
+        }
+    }
+
+    /**
+     * Forces all appended records to the disk and closes this journal. Records appended afterward are ignored.
+     *
+     * @since 3.4.0
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            this.closed = true;
+
+            buffer.force();
+
+            try {
+                channel.close();
+            } catch (final IOException exception) {
+                plugin.getLogger().log(Level.WARNING, "Unable to close the inventory journal", exception);
+            }
+        }
+
+        flusher.shutdown();
+    }
+
+    /**
+     * Checks whether this journal has been closed.
+     *
+     * @return true if this journal has been closed, false otherwise
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Appends the stored inventory of the specified player.
+     *
+     * @param uuid  the uuid of the player
+     * @param slots the slots that hold an item, in ascending order
+     * @param items the item in each slot
+     * @param size  the amount of slots that hold an item
+     * @since 3.4.0
+     */
+    void recordStore(final @NonNull UUID uuid, final int @NonNull [] slots, final @NonNull ItemStack @NonNull [] items,
+                     final int size) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeByte(STORE);
+            output.writeLong(uuid.getMostSignificantBits());
+            output.writeLong(uuid.getLeastSignificantBits());
+            output.writeByte(size);
+
+            for (int index = 0; index < size; index++) {
+                final byte[] item = items[index].serializeAsBytes();
+
+                output.writeByte(slots[index]);
+                output.writeInt(item.length);
+                output.write(item);
+            }
+        } catch (final IOException exception) {
+            //writing to memory doesn't fail
+            throw new IllegalStateException(exception);
+        }
+
+        final byte[] payload = bytes.toByteArray();
+
+        synchronized (this) {
+            stored.put(uuid, payload);
+            append(payload);
+        }
+    }
+
+    /**
+     * Appends that the stored inventory of the specified player has been restored or discarded.
+     *
+     * @param uuid the uuid of the player
+     * @since 3.4.0
+     */
+    synchronized void recordForget(final @NonNull UUID uuid) {
+        //most guis don't store the inventory, so there's usually nothing to forget
+        if (stored.remove(uuid) == null) {
+            return;
+        }
+
+        pending.remove(uuid);
+
+        final byte[] payload = ByteBuffer.allocate(1 + Long.BYTES * 2)
+            .put(FORGET)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits())
+            .array();
+
+        append(payload);
+    }
+
+    /**
+     * Gives the specified player back the items that were stored for them before this journal was opened, if any.
+     *
+     * @param humanEntity the player
+     * @since 3.4.0
+     */
+    private void restorePending(final @NonNull HumanEntity humanEntity) {
+        final UUID uuid = humanEntity.getUniqueId();
+        final byte[] payload;
+
+        synchronized (this) {
+            if (!pending.remove(uuid)) {
+                return;
+            }
+
+            payload = stored.get(uuid);
+        }
+
+        if (payload == null) {
+            return;
+        }
+
+        final ItemStack[] items = new ItemStack[SIZE];
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload))) {
+            //the type and uuid were read while replaying
+            input.skipNBytes(1 + Long.BYTES * 2);
+
+            final int size = input.readUnsignedByte();
+
+            for (int index = 0; index < size; index++) {
+                final int slot = input.readUnsignedByte();
+                final byte[] item = new byte[input.readInt()];
+
+                input.readFully(item);
+
+                items[slot] = ItemStack.deserializeBytes(item);
+            }
+        } catch (final IOException | RuntimeException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Unable to restore the journaled inventory of " + uuid, exception);
+            return;
+        }
+
+        final Inventory inventory = humanEntity.getInventory();
+
+        //while the items were stored, these slots held gui items, so they're replaced entirely
+        for (int slot = 0; slot < SIZE; slot++) {
+            inventory.setItem(slot, items[slot]);
+        }
+
+        recordForget(uuid);
+    }
+
+    /**
+     * Appends the specified record payload. If the journal can't be written anymore, it is closed.
+     *
+     * @param payload the payload
+     * @since 3.4.0
+     */
+    private void append(final byte @NonNull [] payload) {
+        if (closed) {
+            return;
+        }
+
+        final int size = RECORD_HEADER_SIZE + payload.length;
+
+        if (position + size > buffer.capacity()) {
+            try {
+                map(position + size);
+            } catch (final IOException exception) {
+                plugin.getLogger().log(Level.SEVERE, "Unable to write the inventory journal, closing it", exception);
+                this.closed = true;
+                return;
+            }
+        }
+
+        final CRC32 crc = new CRC32();
+
+        crc.update(payload);
+
+        buffer.putInt(position, payload.length);
+        buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        buffer.put(position + RECORD_HEADER_SIZE, payload);
+
+        this.dirtyFrom = Math.min(dirtyFrom, position);
+        this.dirtyTo = position + size;
+        this.position += size;
+    }
+
+    /**
+     * Forces the appended records to the disk and compacts the journal if it has grown too large. This runs on the
+     * flusher thread.
+     *
+     * @since 3.4.0
+     */
+    private void tick() {
+        try {
+            flush();
+            compact();
+        } catch (final RuntimeException exception) {
+            plugin.getLogger().log(Level.WARNING, "Unable to flush the inventory journal", exception);
+        }
+    }
+
+    /**
+     * Forces the records appended since the last flush to the disk. The lock is only held to take the dirty range, so
+     * appending doesn't wait for the disk.
+     *
+     * @since 3.4.0
+     */
+    private void flush() {
+        final MappedByteBuffer buffer;
+        final int from;
+        final int to;
+
+        synchronized (this) {
+            if (closed || dirtyTo <= dirtyFrom) {
+                return;
+            }
+
+            buffer = this.buffer;
+            from = dirtyFrom;
+            to = dirtyTo;
+
+            this.dirtyFrom = Integer.MAX_VALUE;
+            this.dirtyTo = 0;
+        }
+
+        buffer.force(from, to - from);
+    }
+
+    /**
+     * Rewrites the journal file to only contain the inventories that haven't been restored, if it has grown past the
+     * compaction size. The new file is written and forced without holding the lock; only the records appended in the
+     * meantime are copied over while holding it. The next compaction happens once the journal has grown to twice its
+     * compacted size.
+     *
+     * @since 3.4.0
+     */
+    private void compact() {
+        final List<byte[]> payloads;
+        final int from;
+
+        synchronized (this) {
+            if (closed || position < compactionSize) {
+                return;
+            }
+
+            payloads = new ArrayList<>(stored.values());
+            from = position;
+        }
+
+        final Path temporary = temporaryPath();
+        final int size;
+
+        try {
+            size = write(temporary, payloads);
+        } catch (final IOException exception) {
+            plugin.getLogger().log(Level.WARNING, "Unable to compact the inventory journal", exception);
+
+            synchronized (this) {
+                //the old journal is still intact, so keep appending to it
+                this.compactionSize = Math.max(compactionSize, position) * 2;
+            }
+
+            return;
+        }
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            final byte[] tail = new byte[position - from];
+
+            buffer.get(from, tail);
+
+            try {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final IOException exception) {
+                plugin.getLogger().log(Level.WARNING, "Unable to compact the inventory journal", exception);
+                this.compactionSize = Math.max(compactionSize, position) * 2;
+                return;
+            }
+
+            try {
+                final FileChannel previous = channel;
+
+                this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                previous.close();
+
+                map(size + tail.length);
+            } catch (final IOException exception) {
+                plugin.getLogger().log(Level.SEVERE, "Unable to write the inventory journal, closing it", exception);
+                this.closed = true;
+                return;
+            }
+
+            //the records appended during compaction weren't forced yet, so they're dirty in the new file
+            buffer.put(size, tail);
+
+            this.position = size + tail.length;
+            this.dirtyFrom = size;
+            this.dirtyTo = position;
+            this.compactionSize = Math.max(COMPACTION_SIZE, size * 2);
+        }
+    }
+
+    /**
+     * Gets the file a new journal is written to before it replaces the journal file
+     *
+     * @return the temporary file
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    private @NonNull Path temporaryPath() {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /**
+     * Writes a journal file containing the specified record payloads and forces it to the disk.
+     *
+     * @param file     the file to write
+     * @param payloads the payloads of the records
+     * @return the size of the written file
+     * @throws IOException if the file can't be written
+     * @since 3.4.0
+     */
+    private static int write(final @NonNull Path file, final @NonNull Collection<byte[]> payloads) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+        try (FileChannel output = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            output.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, MAGIC));
+
+            for (final byte[] payload : payloads) {
+                final CRC32 crc = new CRC32();
+
+                crc.update(payload);
+
+                output.write(header.clear().putInt(payload.length).putInt((int) crc.getValue()).flip());
+                output.write(ByteBuffer.wrap(payload));
+            }
+
+            output.force(true);
+
+            return (int) output.size();
+        }
+    }
+
+    /**
+     * Maps a region of the journal file that is at least the specified size, growing the file if needed. The previous
+     * region isn't forced: its dirty pages belong to the same file, so forcing the new region writes them as well.
+     *
+     * @param minimumSize the minimum size of the region
+     * @throws IOException if the journal file can't be mapped
+     * @since 3.4.0
+     */
+    private void map(final int minimumSize) throws IOException {
+        final int capacity = (minimumSize / REGION_SIZE + 1) * REGION_SIZE;
+
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Reads the journal at the specified file. Reading stops at the first record that is incomplete or corrupt, which
+     * happens when the server stopped while the record was being written.
+     *
+     * @param path the journal file
+     * @return the latest store record of each player whose inventory wasn't restored, in the order they were stored
+     * @throws IOException if the journal file can't be read
+     * @since 3.4.0
+     */
+    private static @NonNull Map<UUID, byte[]> replay(final @NonNull Path path) throws IOException {
+        final Map<UUID, byte[]> stored = new LinkedHashMap<>();
+
+        if (!Files.exists(path)) {
+            return stored;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+
+        if (buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an inventory journal: " + path);
+        }
+
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            final int length = buffer.getInt();
+            final int checksum = buffer.getInt();
+
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+
+            final byte[] payload = new byte[length];
+
+            buffer.get(payload);
+
+            final CRC32 crc = new CRC32();
+
+            crc.update(payload);
+
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            final UUID uuid = readUUID(payload);
+
+            if (uuid == null) {
+                break;
+            }
+
+            if (payload[0] == STORE) {
+                stored.remove(uuid);
+                stored.put(uuid, payload);
+            } else {
+                stored.remove(uuid);
+            }
+        }
+
+        return stored;
+    }
+
+    /**
+     * Reads the uuid of the player a record payload is for.
+     *
+     * @param payload the payload
+     * @return the uuid, or null if the payload is malformed
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    private static @Nullable UUID readUUID(final byte @NonNull [] payload) {
+        if (payload.length < 1 + Long.BYTES * 2 || (payload[0] != STORE && payload[0] != FORGET)) {
+            return null;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(payload, 1, Long.BYTES * 2);
+
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+}
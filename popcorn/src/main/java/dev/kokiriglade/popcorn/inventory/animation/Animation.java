@@ -0,0 +1,131 @@
+package dev.kokiriglade.popcorn.inventory.animation;
+
+import dev.kokiriglade.popcorn.inventory.gui.GuiItem;
+import dev.kokiriglade.popcorn.inventory.pane.OutlinePane;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.jetbrains.annotations.Contract;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An animation of a gui. An animation changes items or panes every few ticks; it doesn't update the gui itself. It is
+ * played by a {@link GuiAnimator}, which advances all animations that are due and then updates the guis they belong
+ * to, so only the slots that changed are sent to the viewers.
+ *
+ * @since 3.4.0
+ */
+public interface Animation {
+
+    /**
+     * Creates an animation which calls the specified frame every {@code period} ticks, until the frame returns false.
+     * This can be used for e.g. countdowns.
+     *
+     * @param period the amount of ticks between frames
+     * @param frame  advances the animation, returns whether the animation should continue
+     * @return the created animation
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    static @NonNull Animation of(final int period, final @NonNull Frame frame) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+
+        return new Animation() {
+            @Override
+            public int getPeriod() {
+                return period;
+            }
+
+            @Override
+            public boolean nextFrame() {
+                return frame.apply();
+            }
+        };
+    }
+
+    /**
+     * Creates an animation which cycles the specified item through the specified frames, showing the next frame every
+     * {@code period} ticks. The animation loops until it is stopped.
+     *
+     * @param item   the item to animate
+     * @param frames the item stacks to show, in order
+     * @param period the amount of ticks between frames
+     * @return the created animation
+     * @throws IllegalArgumentException if no frames are specified
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    static @NonNull Animation cycle(final @NonNull GuiItem item, final @NonNull List<@NonNull ItemStack> frames, final int period) {
+        if (frames.isEmpty()) {
+            throw new IllegalArgumentException("An animation needs at least one frame");
+        }
+
+        final List<ItemStack> copiedFrames = new ArrayList<>(frames);
+        final int[] index = {0};
+
+        return of(period, () -> {
+            index[0] = (index[0] + 1) % copiedFrames.size();
+
+            item.setItem(copiedFrames.get(index[0]));
+            return true;
+        });
+    }
+
+    /**
+     * Creates an animation which shifts the items of the specified pane by the specified distance every
+     * {@code period} ticks, see {@link OutlinePane#shiftItems(int)}. This can be used for e.g. rotating borders. The
+     * animation loops until it is stopped.
+     *
+     * @param pane     the pane to animate
+     * @param distance the amount of positions to move each item per frame
+     * @param period   the amount of ticks between frames
+     * @return the created animation
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    static @NonNull Animation shift(final @NonNull OutlinePane pane, final int distance, final int period) {
+        return of(period, () -> {
+            pane.shiftItems(distance);
+            return true;
+        });
+    }
+
+    /**
+     * Gets the amount of ticks between two frames of this animation. This is read once when the animation is played.
+     *
+     * @return the period, in ticks
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    int getPeriod();
+
+    /**
+     * Advances this animation to its next frame, by changing the items or panes it animates.
+     *
+     * @return true if this animation should continue, false if it has finished
+     * @since 3.4.0
+     */
+    boolean nextFrame();
+
+    /**
+     * A single step of an animation.
+     *
+     * @since 3.4.0
+     */
+    @FunctionalInterface
+    interface Frame {
+
+        /**
+         * Advances the animation.
+         *
+         * @return true if the animation should continue, false if it has finished
+         * @since 3.4.0
+         */
+        boolean apply();
+
+    }
+
+}
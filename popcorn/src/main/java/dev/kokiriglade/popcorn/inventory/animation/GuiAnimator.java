@@ -0,0 +1,404 @@
+package dev.kokiriglade.popcorn.inventory.animation;
+
+import dev.kokiriglade.popcorn.inventory.GuiScheduler;
+import dev.kokiriglade.popcorn.inventory.gui.type.util.Gui;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.jetbrains.annotations.Contract;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Plays {@link Animation}s for guis. A single task per plugin drives all animations: every tick, it advances the
+ * animations that are due and then updates each affected gui once. Guis update in place where possible, so only the
+ * slots that changed are sent to the viewers.
+ * <p>
+ * To keep many animated guis from taking up too much of a tick, the animator has a time budget per tick. Once the budget
+ * has been used up, the remaining guis are animated on the next tick, before any others. Animations of guis without
+ * viewers are paused, and animations are dropped once their gui has been garbage collected.
+ * <p>
+ * The animator is driven from the main thread, or the global region thread on region-threaded servers. Animations may be
+ * played and stopped from any thread; such requests take effect on the next tick. Frames are shown and guis are updated
+ * on the thread that owns the first viewer of the gui: on servers that aren't region-threaded, this is the main thread
+ * the animator runs on; on region-threaded servers, the frames are handed to the viewer's region, so a gui that is
+ * animated should only be viewed by players in one region at a time.
+ *
+ * @since 3.4.0
+ */
+public final class GuiAnimator {
+
+    /**
+     * The animator of each plugin
+     */
+    private static final @NonNull Map<Plugin, GuiAnimator> ANIMATORS = new ConcurrentHashMap<>();
+
+    /**
+     * The default time budget per tick, in nanoseconds
+     */
+    private static final long DEFAULT_TICK_BUDGET = Duration.ofMillis(2).toNanos();
+
+    /**
+     * The plugin this animator runs for
+     */
+    private final @NonNull Plugin plugin;
+
+    /**
+     * Changes to the playing animations, which are applied at the start of the next tick
+     */
+    private final @NonNull Queue<@NonNull Runnable> requests = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The animated guis, ordered by the tick at which their next frame is due
+     */
+    private final @NonNull PriorityQueue<@NonNull AnimatedGui> scheduled =
+        new PriorityQueue<>(Comparator.comparingLong(animatedGui -> animatedGui.due));
+
+    /**
+     * The animated guis, by gui
+     */
+    private final @NonNull Map<@NonNull Gui, @NonNull AnimatedGui> animatedGuis = new WeakHashMap<>();
+
+    /**
+     * Whether the task driving this animator has been started
+     */
+    private final @NonNull AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * The time budget per tick, in nanoseconds
+     */
+    private volatile long tickBudget = DEFAULT_TICK_BUDGET;
+
+    /**
+     * The current tick of this animator
+     */
+    private long tick;
+
+    /**
+     * Creates a new animator for the specified plugin
+     *
+     * @param plugin the plugin
+     * @since 3.4.0
+     */
+    private GuiAnimator(final @NonNull Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Gets the animator for the specified plugin. All guis of a plugin share this animator.
+     *
+     * @param plugin the plugin
+     * @return the animator
+     * @since 3.4.0
+     */
+    public static @NonNull GuiAnimator get(final @NonNull Plugin plugin) {
+        return ANIMATORS.computeIfAbsent(plugin, GuiAnimator::new);
+    }
+
+    /**
+     * Starts playing the specified animation for the specified gui. The first frame is shown after one period. The
+     * animation plays until it finishes or is stopped.
+     *
+     * @param gui       the gui the animation belongs to
+     * @param animation the animation to play
+     * @throws IllegalArgumentException if the period of the animation isn't positive
+     * @since 3.4.0
+     */
+    public void play(final @NonNull Gui gui, final @NonNull Animation animation) {
+        final int period = animation.getPeriod();
+
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+
+        if (started.compareAndSet(false, true)) {
+            GuiScheduler.runGloballyAtFixedRate(plugin, this::tick, 1);
+        }
+
+        requests.add(() -> {
+            final AnimatedGui animatedGui = animatedGuis.computeIfAbsent(gui, AnimatedGui::new);
+            final Playback playback = new Playback(animation, period, tick + period);
+
+            animatedGui.playbacks.add(playback);
+
+            //re-inserting keeps the queue ordered if this frame is due before the other animations of the gui
+            scheduled.remove(animatedGui);
+            animatedGui.due = Math.min(animatedGui.due, playback.due);
+            scheduled.add(animatedGui);
+        });
+    }
+
+    /**
+     * Stops playing the specified animation for the specified gui. The items and panes stay as they are.
+     *
+     * @param gui       the gui the animation belongs to
+     * @param animation the animation to stop
+     * @since 3.4.0
+     */
+    public void stop(final @NonNull Gui gui, final @NonNull Animation animation) {
+        requests.add(() -> {
+            final AnimatedGui animatedGui = animatedGuis.get(gui);
+
+            if (animatedGui != null) {
+                animatedGui.playbacks.removeIf(playback -> playback.animation == animation);
+            }
+        });
+    }
+
+    /**
+     * Stops playing all animations for the specified gui. The items and panes stay as they are.
+     *
+     * @param gui the gui
+     * @since 3.4.0
+     */
+    public void stopAll(final @NonNull Gui gui) {
+        requests.add(() -> {
+            final AnimatedGui animatedGui = animatedGuis.remove(gui);
+
+            if (animatedGui != null) {
+                scheduled.remove(animatedGui);
+            }
+        });
+    }
+
+    /**
+     * Sets how much time this animator may spend per tick. Frames that don't fit within the budget are shown on the
+     * next tick instead. The default budget is two milliseconds.
+     *
+     * @param tickBudget the time budget per tick
+     * @throws IllegalArgumentException if the budget isn't positive
+     * @since 3.4.0
+     */
+    public void setTickBudget(final @NonNull Duration tickBudget) {
+        if (tickBudget.isNegative() || tickBudget.isZero()) {
+            throw new IllegalArgumentException("Tick budget must be positive");
+        }
+
+        this.tickBudget = tickBudget.toNanos();
+    }
+
+    /**
+     * Gets how much time this animator may spend per tick.
+     *
+     * @return the time budget per tick
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public @NonNull Duration getTickBudget() {
+        return Duration.ofNanos(tickBudget);
+    }
+
+    /**
+     * Advances the animations that are due and updates their guis, until the time budget runs out.
+     *
+     * @since 3.4.0
+     */
+    private void tick() {
+        tick++;
+
+        Runnable request;
+
+        while ((request = requests.poll()) != null) {
+            request.run();
+        }
+
+        final long start = System.nanoTime();
+        final long budget = tickBudget;
+
+        while (!scheduled.isEmpty() && scheduled.peek().due <= tick && System.nanoTime() - start < budget) {
+            final AnimatedGui animatedGui = scheduled.poll();
+            final Gui gui = animatedGui.gui.get();
+
+            if (gui == null) {
+                continue;
+            }
+
+            final List<HumanEntity> viewers = gui.getViewers();
+
+            //while the previous frames are still waiting for the viewer's thread, these frames are shown later
+            if (!viewers.isEmpty() && !animatedGui.showing.get()) {
+                final List<Playback> due = takeDue(animatedGui);
+                final HumanEntity viewer = viewers.getFirst();
+
+                if (Bukkit.isOwnedByCurrentRegion(viewer)) {
+                    show(animatedGui, gui, due);
+                } else {
+                    animatedGui.showing.set(true);
+
+                    GuiScheduler.runForEntity(plugin, viewer, () -> show(animatedGui, gui, due),
+                        () -> animatedGui.showing.set(false));
+                }
+            }
+
+            if (animatedGui.playbacks.isEmpty()) {
+                animatedGuis.remove(gui);
+                continue;
+            }
+
+            animatedGui.due = Long.MAX_VALUE;
+
+            for (final Playback playback : animatedGui.playbacks) {
+                if (playback.due <= tick) {
+                    //paused animations continue one period after their gui is viewed again
+                    playback.due = tick + playback.period;
+                }
+
+                animatedGui.due = Math.min(animatedGui.due, playback.due);
+            }
+
+            scheduled.add(animatedGui);
+        }
+    }
+
+    /**
+     * Takes the animations of the specified gui whose next frame is due, and schedules their following frame.
+     *
+     * @param animatedGui the animated gui
+     * @return the animations whose frame is due
+     * @since 3.4.0
+     */
+    private @NonNull List<@NonNull Playback> takeDue(final @NonNull AnimatedGui animatedGui) {
+        final List<Playback> due = new ArrayList<>();
+
+        for (final Playback playback : animatedGui.playbacks) {
+            if (playback.due <= tick && !playback.finished) {
+                playback.due = tick + playback.period;
+                due.add(playback);
+            }
+        }
+
+        return due;
+    }
+
+    /**
+     * Shows the next frame of the specified animations and updates the gui. Finished animations, and animations that
+     * fail, are removed on the next tick. This runs on the thread that owns the viewer of the gui.
+     *
+     * @param animatedGui the animated gui
+     * @param gui         the gui
+     * @param due         the animations whose frame is due
+     * @since 3.4.0
+     */
+    private void show(final @NonNull AnimatedGui animatedGui, final @NonNull Gui gui, final @NonNull List<@NonNull Playback> due) {
+        try {
+            for (final Playback playback : due) {
+                boolean playing;
+
+                try {
+                    playing = playback.animation.nextFrame();
+                } catch (final RuntimeException exception) {
+                    plugin.getLogger().log(Level.WARNING, "Animation threw an exception, stopping it", exception);
+
+                    playing = false;
+                }
+
+                if (!playing) {
+                    playback.finished = true;
+                    requests.add(() -> animatedGui.playbacks.remove(playback));
+                }
+            }
+
+            if (!due.isEmpty()) {
+                gui.update();
+            }
+        } finally {
+            animatedGui.showing.set(false);
+        }
+    }
+
+    /**
+     * A gui with the animations that are playing for it
+     *
+     * @since 3.4.0
+     */
+    private static final class AnimatedGui {
+
+        /**
+         * The gui, which isn't kept from being garbage collected
+         */
+        private final @NonNull WeakReference<Gui> gui;
+
+        /**
+         * The animations that are playing for the gui
+         */
+        private final @NonNull List<@NonNull Playback> playbacks = new ArrayList<>();
+
+        /**
+         * Whether frames have been handed to the viewer's thread, but haven't been shown yet
+         */
+        private final @NonNull AtomicBoolean showing = new AtomicBoolean();
+
+        /**
+         * The tick at which the next frame of any of the animations is due
+         */
+        private long due = Long.MAX_VALUE;
+
+        /**
+         * Creates a new animated gui
+         *
+         * @param gui the gui
+         * @since 3.4.0
+         */
+        private AnimatedGui(final @NonNull Gui gui) {
+            this.gui = new WeakReference<>(gui);
+        }
+
+    }
+
+    /**
+     * An animation that is playing
+     *
+     * @since 3.4.0
+     */
+    private static final class Playback {
+
+        /**
+         * The animation
+         */
+        private final @NonNull Animation animation;
+
+        /**
+         * The amount of ticks between frames
+         */
+        private final int period;
+
+        /**
+         * The tick at which the next frame is due
+         */
+        private long due;
+
+        /**
+         * Whether the animation has finished, but hasn't been removed yet
+         */
+        private volatile boolean finished;
+
+        /**
+         * Creates a new playback
+         *
+         * @param animation the animation
+         * @param period    the amount of ticks between frames
+         * @param due       the tick at which the first frame is due
+         * @since 3.4.0
+         */
+        private Playback(final @NonNull Animation animation, final int period, final long due) {
+            this.animation = animation;
+            this.period = period;
+            this.due = due;
+        }
+
+    }
+
+}
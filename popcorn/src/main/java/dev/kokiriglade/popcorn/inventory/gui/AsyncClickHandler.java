@@ -0,0 +1,277 @@
+package dev.kokiriglade.popcorn.inventory.gui;
+
+import dev.kokiriglade.popcorn.inventory.GuiScheduler;
+import dev.kokiriglade.popcorn.inventory.gui.type.util.Gui;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.jetbrains.annotations.Contract;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * A click handler whose work is done off the main thread, such as a database query or a purchase. It can be used
+ * anywhere a click handler is accepted, e.g. as the action of a {@link GuiItem} or with
+ * {@link Gui#setOnTopClick(Consumer)}.
+ * <p>
+ * When a player clicks, the click is cancelled and the task is created from the event on the main thread (the player's
+ * region thread on region-threaded servers). The task should copy whatever it needs from the event, since the event
+ * may not be used once the task runs. The task then runs on the executor, by default on its own virtual thread. Once
+ * it's done, the continuation is called with its result on the player's thread, where it may update the gui.
+ * <p>
+ * While a player's task is running, further clicks of that player are ignored, so a double click doesn't run the task
+ * twice. Optionally, a processing item is shown in the clicked slot until the task is done.
+ *
+ * @param <T> the type of the result of the task
+ * @since 3.4.0
+ */
+public final class AsyncClickHandler<T> implements Consumer<InventoryClickEvent> {
+
+    /**
+     * The executor used if no executor was specified
+     */
+    private static final @NonNull ExecutorService DEFAULT_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * The plugin used to schedule the continuation
+     */
+    private final @NonNull Plugin plugin;
+
+    /**
+     * Creates the task from the click event
+     */
+    private final @NonNull Function<? super @NonNull InventoryClickEvent, ? extends @NonNull Callable<? extends T>> task;
+
+    /**
+     * Called with the result of the task
+     */
+    private final @NonNull BiConsumer<? super @NonNull HumanEntity, ? super T> continuation;
+
+    /**
+     * The players whose task is currently running
+     */
+    private final @NonNull Set<@NonNull UUID> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The executor the tasks are run on
+     */
+    private volatile @NonNull Executor executor = DEFAULT_EXECUTOR;
+
+    /**
+     * The item shown in the clicked slot while the task is running, or null if the slot should stay as it is
+     */
+    private volatile @Nullable ItemStack processingItem;
+
+    /**
+     * Called when the task fails, or null if failures should be logged
+     */
+    private volatile @Nullable BiConsumer<? super @NonNull HumanEntity, ? super @NonNull Throwable> onFailure;
+
+    /**
+     * Creates a new asynchronous click handler
+     *
+     * @param plugin       the plugin used to schedule the continuation
+     * @param task         creates the task from the click event
+     * @param continuation called with the result of the task
+     * @since 3.4.0
+     */
+    private AsyncClickHandler(final @NonNull Plugin plugin,
+                              final @NonNull Function<? super @NonNull InventoryClickEvent, ? extends @NonNull Callable<? extends T>> task,
+                              final @NonNull BiConsumer<? super @NonNull HumanEntity, ? super T> continuation) {
+        this.plugin = plugin;
+        this.task = task;
+        this.continuation = continuation;
+    }
+
+    /**
+     * Creates a new asynchronous click handler. The task is created from the click event on the main thread and run
+     * off of it; the continuation is called with its result on the clicking player's thread.
+     *
+     * @param plugin       the plugin used to schedule the continuation
+     * @param task         creates the task from the click event
+     * @param continuation called with the player who clicked and the result of the task
+     * @param <T>          the type of the result of the task
+     * @return the created click handler
+     * @since 3.4.0
+     */
+    @Contract(value = "_, _, _ -> new", pure = true)
+    public static <T> @NonNull AsyncClickHandler<T> of(final @NonNull Plugin plugin,
+                                                       final @NonNull Function<? super @NonNull InventoryClickEvent, ? extends @NonNull Callable<? extends T>> task,
+                                                       final @NonNull BiConsumer<? super @NonNull HumanEntity, ? super T> continuation) {
+        return new AsyncClickHandler<>(plugin, task, continuation);
+    }
+
+    /**
+     * Creates a new asynchronous click handler, see {@link #of(Plugin, Function, BiConsumer)}.
+     *
+     * @param task         creates the task from the click event
+     * @param continuation called with the player who clicked and the result of the task
+     * @param <T>          the type of the result of the task
+     * @return the created click handler
+     * @since 3.4.0
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    public static <T> @NonNull AsyncClickHandler<T> of(final @NonNull Function<? super @NonNull InventoryClickEvent, ? extends @NonNull Callable<? extends T>> task,
+                                                       final @NonNull BiConsumer<? super @NonNull HumanEntity, ? super T> continuation) {
+        return of(JavaPlugin.getProvidingPlugin(AsyncClickHandler.class), task, continuation);
+    }
+
+    /**
+     * Sets the executor the tasks are run on. By default, each task runs on its own virtual thread.
+     *
+     * @param executor the executor
+     * @since 3.4.0
+     */
+    public void setExecutor(final @NonNull Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the item shown in the clicked slot while the task is running. Once the task is done, the previous item is
+     * put back, unless the slot has been changed in the meantime. This only applies to clicks in the top inventory.
+     *
+     * @param processingItem the item to show, or null to leave the slot as it is
+     * @since 3.4.0
+     */
+    public void setProcessingItem(final @Nullable ItemStack processingItem) {
+        this.processingItem = processingItem == null ? null : processingItem.clone();
+    }
+
+    /**
+     * Sets what should happen when a task fails. This is called on the clicking player's thread, instead of the
+     * continuation. By default, the failure is logged.
+     *
+     * @param onFailure called with the player who clicked and the reason the task failed, or null to log failures
+     * @since 3.4.0
+     */
+    public void setOnFailure(final @Nullable BiConsumer<? super @NonNull HumanEntity, ? super @NonNull Throwable> onFailure) {
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Checks whether a task is currently running for the specified player.
+     *
+     * @param humanEntity the player
+     * @return true if a task is running for the player, false otherwise
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public boolean isRunning(final @NonNull HumanEntity humanEntity) {
+        return inFlight.contains(humanEntity.getUniqueId());
+    }
+
+    /**
+     * Cancels the click and starts the task for it, unless a task is already running for the player who clicked.
+     *
+     * @param event the click event
+     * @since 3.4.0
+     */
+    @Override
+    public void accept(final @NonNull InventoryClickEvent event) {
+        event.setCancelled(true);
+
+        final HumanEntity humanEntity = event.getWhoClicked();
+        final UUID uuid = humanEntity.getUniqueId();
+
+        if (!inFlight.add(uuid)) {
+            return;
+        }
+
+        final Callable<? extends T> callable;
+
+        try {
+            callable = task.apply(event);
+        } catch (final RuntimeException exception) {
+            inFlight.remove(uuid);
+            throw exception;
+        }
+
+        final Inventory inventory = event.getClickedInventory();
+        final int slot = event.getSlot();
+        final ItemStack processingItem = this.processingItem;
+        final boolean processing = processingItem != null && inventory != null
+            && inventory.equals(event.getView().getTopInventory());
+        final ItemStack previousItem = processing ? inventory.getItem(slot) : null;
+
+        if (processing) {
+            inventory.setItem(slot, processingItem);
+        }
+
+        CompletableFuture.<T>supplyAsync(() -> {
+            try {
+                return callable.call();
+            } catch (final Exception exception) {
+                throw new CompletionException(exception);
+            }
+        }, executor).whenComplete((result, throwable) -> {
+            if (!plugin.isEnabled()) {
+                inFlight.remove(uuid);
+                return;
+            }
+
+            GuiScheduler.runForEntity(plugin, humanEntity, () -> {
+                inFlight.remove(uuid);
+
+                if (processing && inventory.equals(humanEntity.getOpenInventory().getTopInventory())
+                    && processingItem.isSimilar(inventory.getItem(slot))) {
+                    inventory.setItem(slot, previousItem);
+                }
+
+                complete(humanEntity, result, throwable);
+            }, () -> inFlight.remove(uuid));
+        });
+    }
+
+    /**
+     * Calls the continuation, or handles the failure of the task. This must be called on the player's thread.
+     *
+     * @param humanEntity the player who clicked
+     * @param result      the result of the task, or null if it failed
+     * @param throwable   the reason the task failed, or null if it succeeded
+     * @since 3.4.0
+     */
+    private void complete(final @NonNull HumanEntity humanEntity, final @Nullable T result, final @Nullable Throwable throwable) {
+        if (throwable == null) {
+            try {
+                continuation.accept(humanEntity, result);
+            } catch (final RuntimeException exception) {
+                plugin.getLogger().log(Level.SEVERE, "Exception while continuing an asynchronous click", exception);
+            }
+
+            return;
+        }
+
+        final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+            ? throwable.getCause() : throwable;
+        final BiConsumer<? super HumanEntity, ? super Throwable> onFailure = this.onFailure;
+
+        if (onFailure == null) {
+            plugin.getLogger().log(Level.SEVERE, "Exception while handling an asynchronous click", cause);
+            return;
+        }
+
+        try {
+            onFailure.accept(humanEntity, cause);
+        } catch (final RuntimeException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Exception while handling the failure of an asynchronous click", exception);
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+package dev.kokiriglade.popcorn.inventory.gui;
+
+import dev.kokiriglade.popcorn.inventory.gui.type.util.Gui;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.jetbrains.annotations.Contract;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A limit on how fast a player may click in guis. Each player has a bucket of clicks, which refills at a fixed rate up
+ * to its capacity; every click takes one from the bucket. Clicks made while the bucket is empty are dropped: the event
+ * is cancelled before it reaches the gui, its callbacks or its panes. Under a finite limit, a click that is identical to
+ * the previous click of the player within the same tick is dropped as well, without taking from the bucket.
+ * <p>
+ * A limit can be set for a specific gui with {@link Gui#setClickLimit(ClickLimit)}; all other guis use the
+ * {@link #getDefault() default limit}, which is {@link #unlimited()} unless changed. Limits are immutable.
+ *
+ * @since 3.4.0
+ */
+public final class ClickLimit {
+
+    /**
+     * A limit which allows any amount of clicks
+     */
+    private static final @NonNull ClickLimit UNLIMITED = new ClickLimit(Integer.MAX_VALUE, Double.POSITIVE_INFINITY);
+
+    /**
+     * The amount of clicks that were dropped, across all guis
+     */
+    private static final @NonNull LongAdder DROPPED_CLICKS = new LongAdder();
+
+    /**
+     * The limit used by guis that don't specify their own
+     */
+    private static volatile @NonNull ClickLimit defaultLimit = UNLIMITED;
+
+    /**
+     * The maximum amount of clicks that can be made in quick succession
+     */
+    private final int capacity;
+
+    /**
+     * The amount of clicks that are added to the bucket per second
+     */
+    private final double clicksPerSecond;
+
+    /**
+     * Creates a new click limit
+     *
+     * @param capacity        the maximum amount of clicks that can be made in quick succession
+     * @param clicksPerSecond the amount of clicks that are added to the bucket per second
+     * @since 3.4.0
+     */
+    private ClickLimit(final int capacity, final double clicksPerSecond) {
+        this.capacity = capacity;
+        this.clicksPerSecond = clicksPerSecond;
+    }
+
+    /**
+     * Creates a click limit which allows bursts of up to {@code capacity} clicks and, sustained,
+     * {@code clicksPerSecond} clicks per second.
+     *
+     * @param capacity        the maximum amount of clicks that can be made in quick succession
+     * @param clicksPerSecond the amount of clicks that are added to the bucket per second
+     * @return the click limit
+     * @throws IllegalArgumentException if the capacity or rate isn't positive
+     * @since 3.4.0
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    public static @NonNull ClickLimit of(final int capacity, final double clicksPerSecond) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        if (!(clicksPerSecond > 0)) {
+            throw new IllegalArgumentException("Clicks per second must be positive");
+        }
+
+        return new ClickLimit(capacity, clicksPerSecond);
+    }
+
+    /**
+     * Gets a click limit which allows any amount of clicks. No clicks are dropped, not even identical clicks within a
+     * tick.
+     *
+     * @return the unlimited click limit
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public static @NonNull ClickLimit unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Gets the limit used by guis that don't specify their own. By default, this is {@link #unlimited()}.
+     *
+     * @return the default click limit
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public static @NonNull ClickLimit getDefault() {
+        return defaultLimit;
+    }
+
+    /**
+     * Sets the limit used by guis that don't specify their own.
+     *
+     * @param clickLimit the default click limit
+     * @since 3.4.0
+     */
+    public static void setDefault(final @NonNull ClickLimit clickLimit) {
+        defaultLimit = clickLimit;
+    }
+
+    /**
+     * Gets the amount of clicks that have been dropped, across all guis.
+     *
+     * @return the amount of dropped clicks
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public static long getDroppedClicks() {
+        return DROPPED_CLICKS.sum();
+    }
+
+    /**
+     * Records that a click was dropped
+     *
+     * @since 3.4.0
+     */
+    static void recordDroppedClick() {
+        DROPPED_CLICKS.increment();
+    }
+
+    /**
+     * Checks whether this limit allows any amount of clicks, see {@link #unlimited()}.
+     *
+     * @return true if this limit is unlimited, false otherwise
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public boolean isUnlimited() {
+        return Double.isInfinite(clicksPerSecond);
+    }
+
+    /**
+     * Gets the maximum amount of clicks that can be made in quick succession
+     *
+     * @return the capacity
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the amount of clicks that are added to the bucket per second
+     *
+     * @return the refill rate
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public double getClicksPerSecond() {
+        return clicksPerSecond;
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object object) {
+        if (this == object) {
+            return true;
+        }
+
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+
+        final ClickLimit clickLimit = (ClickLimit) object;
+
+        return capacity == clickLimit.capacity && Double.compare(clicksPerSecond, clickLimit.clicksPerSecond) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * capacity + Double.hashCode(clicksPerSecond);
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return "ClickLimit{capacity=" + capacity + ", clicksPerSecond=" + clicksPerSecond + "}";
+    }
+
+}
@@ -1,5 +1,8 @@
 package dev.kokiriglade.popcorn.inventory.gui;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import dev.kokiriglade.popcorn.inventory.util.ModificationClock;
 import dev.kokiriglade.popcorn.persistence.UUIDTagType;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import org.bukkit.NamespacedKey;
@@ -27,6 +30,13 @@ import java.util.logging.Logger;
 @SuppressWarnings("unused")
 public class GuiItem {
 
+    /**
+     * The display items of decorations, so equal decorations share a single item stack
+     *
+     * @since 3.4.0
+     */
+    private static final @NonNull Interner<ItemStack> DECORATION_ITEMS = Interners.newWeakInterner();
+
     /**
      * The logger to log errors with
      *
@@ -77,6 +87,28 @@ public class GuiItem {
      */
     private @NonNull UUID uuid = UUID.randomUUID();
 
+    /**
+     * The item as it is displayed in inventories, with the internal UUID applied, or null if it has not been created
+     * since the item last changed
+     *
+     * @since 3.4.0
+     */
+    private @Nullable ItemStack displayItem;
+
+    /**
+     * The time at which this item was last modified, as per {@link ModificationClock}
+     *
+     * @since 3.4.0
+     */
+    private long lastModified = ModificationClock.tick();
+
+    /**
+     * Whether this item is a decoration, see {@link #decoration(ItemStack, Plugin)}
+     *
+     * @since 3.4.0
+     */
+    private final boolean decoration;
+
     /**
      * Creates a new gui item based on the item stack and action
      *
@@ -137,17 +169,62 @@ public class GuiItem {
      */
     private GuiItem(final @NonNull ItemStack item, final @Nullable Consumer<InventoryClickEvent> action, final @NonNull Logger logger,
                     final @NonNull NamespacedKey key) {
+        this(item, action, logger, key, false);
+    }
+
+    /**
+     * Creates a new gui item based on the given item, action, logger, and key, which may be a decoration. The item of a
+     * decoration isn't modified.
+     *
+     * @param item       the item stack
+     * @param action     the action called whenever an interaction with this item happens
+     * @param logger     the logger used for logging exceptions
+     * @param key        the key to identify this item with
+     * @param decoration whether this item is a decoration
+     * @since 3.4.0
+     */
+    private GuiItem(final @NonNull ItemStack item, final @Nullable Consumer<InventoryClickEvent> action, final @NonNull Logger logger,
+                    final @NonNull NamespacedKey key, final boolean decoration) {
         this.logger = logger;
         this.keyUUID = key;
         this.action = action;
         this.visible = true;
         this.properties = new ArrayList<>();
         this.item = item;
+        this.decoration = decoration;
 
         // TODO remove this call after the removal of InventoryComponent#setItem(ItemStack, int, int)
         applyUUID();
     }
 
+    /**
+     * Creates a decoration: a gui item that only displays the specified item, such as filler glass or a border. A
+     * decoration has no internal UUID applied to its item and is never clicked, so its action is never called. Equal
+     * decorations display one shared item stack, no matter how many slots or guis they are in, and a single decoration
+     * may be placed in multiple slots.
+     *
+     * @param item   the item stack, which isn't modified
+     * @param plugin the owning plugin of this item
+     * @return the decoration
+     * @since 3.4.0
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    public static @NonNull GuiItem decoration(final @NonNull ItemStack item, final @NonNull Plugin plugin) {
+        return new GuiItem(item.clone(), null, plugin.getLogger(), new NamespacedKey(plugin, "IF-uuid"), true);
+    }
+
+    /**
+     * Creates a decoration, see {@link #decoration(ItemStack, Plugin)}.
+     *
+     * @param item the item stack, which isn't modified
+     * @return the decoration
+     * @since 3.4.0
+     */
+    @Contract(value = "_ -> new", pure = true)
+    public static @NonNull GuiItem decoration(final @NonNull ItemStack item) {
+        return decoration(item, JavaPlugin.getProvidingPlugin(GuiItem.class));
+    }
+
     /**
      * Makes a copy of this gui item and returns it. This makes a deep copy of the gui item. This entails that the
      * underlying item will be copied as per their {@link ItemStack#clone()} and miscellaneous data will be copied in
@@ -158,11 +235,17 @@ public class GuiItem {
      */
     @Contract(pure = true)
     public @NonNull GuiItem copy() {
-        final GuiItem guiItem = new GuiItem(item.clone(), action, this.logger, this.keyUUID);
+        final GuiItem guiItem = new GuiItem(item.clone(), action, this.logger, this.keyUUID, decoration);
 
         guiItem.visible = visible;
         guiItem.uuid = uuid;
         guiItem.properties = new ArrayList<>(properties);
+        guiItem.displayItem = displayItem;
+
+        if (decoration) {
+            return guiItem;
+        }
+
         final ItemMeta meta = guiItem.item.getItemMeta();
 
         if (meta != null) {
@@ -196,17 +279,24 @@ public class GuiItem {
 
     /**
      * Sets the internal UUID of this gui item onto the underlying item. Previously set UUID will be overwritten by the
-     * current UUID. If the underlying item does not have an item meta, this method will silently do nothing.
+     * current UUID. If the underlying item does not have an item meta, or this item is a decoration, this method will
+     * silently do nothing.
      *
      * @since 3.0.0
      */
     public void applyUUID() {
+        if (decoration) {
+            return;
+        }
+
         final ItemMeta meta = item.getItemMeta();
 
         if (meta != null) {
             meta.getPersistentDataContainer().set(this.keyUUID, UUIDTagType.INSTANCE, uuid);
             item.setItemMeta(meta);
         }
+
+        this.displayItem = null;
     }
 
     /**
@@ -238,10 +328,12 @@ public class GuiItem {
      */
     public void setProperties(final @NonNull List<Object> properties) {
         this.properties = properties;
+        this.displayItem = null;
     }
 
     /**
-     * Returns the item
+     * Returns the item. If the returned item is modified, it should be passed to {@link #setItem(ItemStack)}
+     * afterwards, otherwise guis may keep displaying the previous item.
      *
      * @return the item that belongs to this gui item
      * @since 3.0.0
@@ -259,6 +351,37 @@ public class GuiItem {
      */
     public void setItem(final @NonNull ItemStack item) {
         this.item = item;
+        this.displayItem = null;
+        this.lastModified = ModificationClock.tick();
+    }
+
+    /**
+     * Gets the item as it should be displayed in inventories. This is a copy of {@link #getItem()} with the internal
+     * UUID of this gui item applied. The copy is created once and then reused until this gui item is changed, so the
+     * returned item must not be modified. For a decoration, this is the copy shared by all equal decorations, which is
+     * only handed to inventories, since those copy it.
+     *
+     * @return the item to display
+     * @since 3.4.0
+     */
+    @NonNull ItemStack getDisplayItem() {
+        if (this.displayItem == null && decoration) {
+            this.displayItem = DECORATION_ITEMS.intern(item.clone());
+        }
+
+        if (this.displayItem == null) {
+            final ItemStack displayItem = item.clone();
+            final ItemMeta meta = displayItem.getItemMeta();
+
+            if (meta != null) {
+                meta.getPersistentDataContainer().set(this.keyUUID, UUIDTagType.INSTANCE, uuid);
+                displayItem.setItemMeta(meta);
+            }
+
+            this.displayItem = displayItem;
+        }
+
+        return this.displayItem;
     }
 
     /**
@@ -284,6 +407,17 @@ public class GuiItem {
         return uuid;
     }
 
+    /**
+     * Returns whether this item is a decoration, see {@link #decoration(ItemStack, Plugin)}.
+     *
+     * @return true if this item is a decoration, false otherwise
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public boolean isDecoration() {
+        return decoration;
+    }
+
     /**
      * Returns whether this item is visible
      *
@@ -302,6 +436,21 @@ public class GuiItem {
      */
     public void setVisible(final boolean visible) {
         this.visible = visible;
+        this.displayItem = null;
+        this.lastModified = ModificationClock.tick();
+    }
+
+    /**
+     * Checks whether this item was modified since the specified time, as per {@link ModificationClock}. Only
+     * modifications that change how this item is displayed are taken into account.
+     *
+     * @param time the time to compare against
+     * @return true if this item was modified since the specified time, false otherwise
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public boolean isModifiedSince(final long time) {
+        return lastModified > time;
     }
 
 }
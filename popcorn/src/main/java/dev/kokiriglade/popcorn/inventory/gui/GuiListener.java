@@ -1,6 +1,9 @@
 package dev.kokiriglade.popcorn.inventory.gui;
 
+import com.google.common.collect.MapMaker;
+import dev.kokiriglade.popcorn.inventory.GuiScheduler;
 import dev.kokiriglade.popcorn.inventory.gui.type.util.Gui;
+import dev.kokiriglade.popcorn.inventory.gui.type.util.NamedGui;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.HumanEntity;
 import org.bukkit.event.EventHandler;
@@ -17,19 +20,18 @@ import org.bukkit.event.inventory.InventoryOpenEvent;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.event.server.PluginDisableEvent;
 import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.InventoryView;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.plugin.Plugin;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
-import org.jetbrains.annotations.Contract;
 
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.EnumSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -40,6 +42,15 @@ import java.util.logging.Logger;
  */
 public class GuiListener implements Listener {
 
+    /**
+     * The types of inventories that keep their contents when a player navigates from them to another inventory, see
+     * {@link NavigationHistory}
+     */
+    private static final @NonNull Set<@NonNull InventoryType> RETAINED_INVENTORY_TYPES = EnumSet.of(
+        InventoryType.CHEST, InventoryType.BARREL, InventoryType.ENDER_CHEST, InventoryType.SHULKER_BOX,
+        InventoryType.HOPPER, InventoryType.DISPENSER, InventoryType.DROPPER
+    );
+
     /**
      * The owning plugin of this listener.
      */
@@ -48,7 +59,12 @@ public class GuiListener implements Listener {
     /**
      * A collection of all {@link Gui} instances that have at least one viewer.
      */
-    private final @NonNull Set<@NonNull Gui> activeGuiInstances = new HashSet<>();
+    private final @NonNull Set<@NonNull Gui> activeGuiInstances = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The clicks each player has left, see {@link ClickLimit}
+     */
+    private final @NonNull Map<HumanEntity, ClickBucket> clickBuckets = new MapMaker().weakKeys().makeMap();
 
     /**
      * Creates a new listener for all guis for the provided {@code plugin}.
@@ -61,7 +77,7 @@ public class GuiListener implements Listener {
     }
 
     /**
-     * Handles clicks in inventories
+     * Handles clicks in inventories. Clicks that exceed the {@link ClickLimit} of the gui are cancelled and not handled.
      *
      * @param event the event fired
      * @since 3.0.0
@@ -74,6 +90,19 @@ public class GuiListener implements Listener {
             return;
         }
 
+        final ClickLimit clickLimit = gui.getClickLimit();
+
+        //unlimited guis don't drop any clicks, so they don't need a bucket
+        if (!clickLimit.isUnlimited()) {
+            final ClickBucket clickBucket = clickBuckets.computeIfAbsent(event.getWhoClicked(), ignored -> new ClickBucket());
+
+            if (!clickBucket.tryClick(clickLimit, event)) {
+                event.setCancelled(true);
+                ClickLimit.recordDroppedClick();
+                return;
+            }
+        }
+
         final InventoryView view = event.getView();
         final Inventory inventory = view.getInventory(event.getRawSlot());
 
@@ -90,6 +119,12 @@ public class GuiListener implements Listener {
         }
 
         gui.click(event);
+
+        //the click may move items in or out of the gui's inventory and the clicker's inventory, so their contents are
+        //no longer known
+        if (!event.isCancelled()) {
+            gui.invalidateRenderCaches(event.getWhoClicked());
+        }
     }
 
     /**
@@ -192,6 +227,10 @@ public class GuiListener implements Listener {
 
             event.setCancelled(inventoryClickEvent.isCancelled());
         }
+
+        if (!event.isCancelled()) {
+            gui.invalidateRenderCaches(event.getWhoClicked());
+        }
     }
 
     /**
@@ -217,7 +256,15 @@ public class GuiListener implements Listener {
         if (!gui.isUpdating()) {
             gui.callOnClose(event);
 
-            event.getInventory().clear(); //clear inventory to prevent items being put back
+            final Inventory inventory = event.getInventory();
+            final boolean openingOther = event.getReason() == InventoryCloseEvent.Reason.OPEN_NEW;
+            //storage inventories don't hand their contents back on close, so they can be kept for returning to the gui
+            final boolean retained = openingOther && RETAINED_INVENTORY_TYPES.contains(inventory.getType());
+
+            if (!retained) {
+                inventory.clear(); //clear inventory to prevent items being put back
+                gui.invalidateRenderCaches();
+            }
 
             gui.getHumanEntityCache().restoreAndForget(humanEntity);
 
@@ -225,8 +272,16 @@ public class GuiListener implements Listener {
                 activeGuiInstances.remove(gui);
             }
 
+            final NavigationHistory history = NavigationHistory.of(humanEntity);
+
+            if (openingOther) {
+                history.push(gui, inventory, retained);
+            } else if (gui.getParent() == null) {
+                history.clear();
+            }
+
             //Bukkit doesn't like it if you open an inventory while the previous one is being closed
-            Bukkit.getScheduler().runTask(this.plugin, () -> gui.navigateToParent(humanEntity));
+            GuiScheduler.runForEntity(this.plugin, humanEntity, () -> gui.navigateToParent(humanEntity));
         }
     }
 
@@ -245,6 +300,11 @@ public class GuiListener implements Listener {
         }
 
         activeGuiInstances.add(gui);
+        NavigationHistory.of(event.getPlayer()).opened(gui);
+
+        if (gui instanceof NamedGui namedGui) {
+            namedGui.refreshTitle(event.getPlayer());
+        }
     }
 
     /**
@@ -262,7 +322,7 @@ public class GuiListener implements Listener {
         int counter = 0; //callbacks might open GUIs, eg. in nested menus
         final int maxCount = 10;
         while (!activeGuiInstances.isEmpty() && counter++ < maxCount) {
-            for (final Gui gui : new ArrayList<>(activeGuiInstances)) {
+            for (final Gui gui : activeGuiInstances) {
                 for (final HumanEntity viewer : gui.getViewers()) {
                     viewer.closeInventory();
                 }
@@ -285,21 +345,94 @@ public class GuiListener implements Listener {
      * @return the gui or null if the inventory doesn't have a gui
      * @since 3.0.0
      */
-    @Contract(pure = true)
     private @Nullable Gui getGui(final @NonNull Inventory inventory) {
-        final Gui gui = Gui.getGui(inventory);
+        return Gui.getGui(inventory);
+    }
 
-        if (gui != null) {
-            return gui;
-        }
+    /**
+     * The clicks a player has left and the last click they made. This is only accessed from the thread the player's
+     * events are called on.
+     *
+     * @since 3.4.0
+     */
+    private static final class ClickBucket {
+
+        /**
+         * The amount of clicks left, or NaN if the bucket hasn't been used yet
+         */
+        private double clicks = Double.NaN;
+
+        /**
+         * The time at which the bucket was last refilled, in nanoseconds
+         */
+        private long lastRefill;
+
+        /**
+         * The tick at which the last click was made
+         */
+        private int lastTick = -1;
+
+        /**
+         * The raw slot of the last click
+         */
+        private int lastSlot;
+
+        /**
+         * The hotbar button of the last click
+         */
+        private int lastHotbarButton;
+
+        /**
+         * The type of the last click, or null if no click was made yet
+         */
+        private @Nullable ClickType lastClick;
+
+        /**
+         * Takes a click from this bucket for the specified event, unless the event should be dropped. An event is
+         * dropped when it repeats the previous click within the same tick, or when the bucket is empty.
+         *
+         * @param clickLimit the limit of the clicked gui
+         * @param event      the click event
+         * @return true if the click may be handled, false if it should be dropped
+         * @since 3.4.0
+         */
+        private boolean tryClick(final @NonNull ClickLimit clickLimit, final @NonNull InventoryClickEvent event) {
+            final int tick = Bukkit.getCurrentTick();
+            final int slot = event.getRawSlot();
+            final int hotbarButton = event.getHotbarButton();
+            final ClickType click = event.getClick();
+
+            if (tick == lastTick && slot == lastSlot && hotbarButton == lastHotbarButton && click == lastClick) {
+                return false;
+            }
+
+            this.lastTick = tick;
+            this.lastSlot = slot;
+            this.lastHotbarButton = hotbarButton;
+            this.lastClick = click;
+
+            final long now = System.nanoTime();
+            final int capacity = clickLimit.getCapacity();
+
+            if (Double.isNaN(clicks)) {
+                this.clicks = capacity;
+            } else {
+                final double refilled = (now - lastRefill) / 1_000_000_000.0 * clickLimit.getClicksPerSecond();
+
+                this.clicks = Math.min(capacity, clicks + refilled);
+            }
+
+            this.lastRefill = now;
+
+            if (clicks < 1) {
+                return false;
+            }
 
-        final InventoryHolder holder = inventory.getHolder();
+            this.clicks--;
 
-        if (holder instanceof Gui guiInstance) {
-            return guiInstance;
+            return true;
         }
 
-        return null;
     }
 
 }
@@ -2,17 +2,22 @@ package dev.kokiriglade.popcorn.inventory.gui;
 
 import dev.kokiriglade.popcorn.inventory.gui.type.util.Gui;
 import dev.kokiriglade.popcorn.inventory.pane.Pane;
+import dev.kokiriglade.popcorn.inventory.util.ModificationClock;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Contract;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a component within an inventory that can hold items. This is always in the shape of a rectangular grid.
@@ -33,6 +38,75 @@ public class InventoryComponent {
      */
     private final @Nullable ItemStack @NonNull [] @NonNull [] items;
 
+    /**
+     * The gui items that were rendered into this inventory component, stored in the same order as {@link #items}. This
+     * allows clicks to be resolved by their slot, without having to inspect the clicked item. Slots that are empty, or
+     * whose item was not set via a gui item, are represented as null.
+     */
+    private final @Nullable GuiItem @NonNull [] @NonNull [] guiItems;
+
+    /**
+     * The amount of items in each row of this inventory component, indexed by y coordinate
+     */
+    private final int @NonNull [] rowItemCounts;
+
+    /**
+     * The panes that rendered the gui items in {@link #guiItems}, stored in the same order. Slots for which the pane
+     * is unknown are represented as null.
+     */
+    private final @Nullable Pane @NonNull [] @NonNull [] owners;
+
+    /**
+     * The panes of this component which are shared with another component, as per {@link #share()}, or null if none
+     * are. These panes are copied before they are handed out by {@link #ownPane(Pane)}.
+     */
+    private @Nullable Set<@NonNull Pane> sharedPanes;
+
+    /**
+     * The time at which the panes were last rendered into this component, as per {@link ModificationClock}, or -1 if
+     * the items of this component don't reflect a previous render
+     */
+    private long renderedAt = -1;
+
+    /**
+     * The panes in the order in which they were last rendered
+     */
+    private @NonNull Pane @NonNull [] renderedPanes = new Pane[0];
+
+    /**
+     * The cells each pane in {@link #renderedPanes} wrote to during the last render. Each footprint is a bit set in
+     * which the cell at (x, y) is represented by the bit at index y * length + x.
+     */
+    private long @NonNull [] @NonNull [] footprints = new long[0][];
+
+    /**
+     * Whether panes are currently being rendered into this component
+     */
+    private boolean rendering;
+
+
+    /**
+     * The footprint in which the cells written by the current render are recorded
+     */
+    private long @Nullable [] recording;
+
+    /**
+     * The cells the current render may write to, or null if it may write to all cells
+     */
+    private long @Nullable [] clip;
+
+    /**
+     * For each cell, the index in {@link #clickIndexPanes} at which the panes a click on that cell may be routed to
+     * start; the panes of cell {@code i} end where those of cell {@code i + 1} start. This is null if the index has to
+     * be built again.
+     */
+    private int @Nullable [] clickIndexStarts;
+
+    /**
+     * The panes that clicks may be routed to, grouped by cell and ordered from the highest to the lowest priority
+     */
+    private @NonNull Pane @NonNull [] clickIndexPanes = new Pane[0];
+
     /**
      * The length and height of this inventory component
      */
@@ -55,6 +129,9 @@ public class InventoryComponent {
         this.height = height;
 
         this.items = new ItemStack[length][height];
+        this.guiItems = new GuiItem[length][height];
+        this.owners = new Pane[length][height];
+        this.rowItemCounts = new int[height];
     }
 
     /**
@@ -159,7 +236,57 @@ public class InventoryComponent {
                     slot = (y + 1) * getLength() + x + offset;
                 }
 
-                inventory.setItem(slot, getItem(x, y));
+                inventory.setItem(slot, getRenderedItem(x, y));
+            }
+        }
+    }
+
+    /**
+     * This places the items currently existing in this inventory component into the specified player inventory, in the
+     * same slots as {@link #placeItems(PlayerInventory, int)}. Only slots whose item differs from what the render cache
+     * last placed there are written.
+     *
+     * @param inventory   the inventory to place the items in
+     * @param offset      the offset from which to start counting the slots
+     * @param renderCache the cache of the items previously placed into the inventory
+     * @see #placeItems(PlayerInventory, int)
+     * @since 3.4.0
+     */
+    public void placeItems(final @NonNull PlayerInventory inventory, final int offset, final @NonNull RenderCache renderCache) {
+        placeRows(inventory, 0, getHeight() - 1, offset, renderCache);
+    }
+
+    /**
+     * Places the items in the specified rows of this component into the specified player inventory through the
+     * specified render cache, as if those rows were a component of their own, see
+     * {@link #placeItems(PlayerInventory, int, RenderCache)}. The rows are read directly, without copying them as
+     * {@link #excludeRows(int, int)} would.
+     *
+     * @param inventory   the inventory to place the items in
+     * @param from        the first row to place, inclusive
+     * @param end         the last row to place, inclusive
+     * @param offset      the offset from which to start counting the slots
+     * @param renderCache the cache of the items previously placed into the inventory
+     * @throws IllegalArgumentException if the range includes non-existent rows
+     * @since 3.4.0
+     */
+    public void placeRows(final @NonNull PlayerInventory inventory, final int from, final int end, final int offset,
+                          final @NonNull RenderCache renderCache) {
+        if (from < 0 || end >= getHeight()) {
+            throw new IllegalArgumentException("Specified range includes non-existent rows");
+        }
+
+        for (int x = 0; x < getLength(); x++) {
+            for (int y = from; y <= end; y++) {
+                final int slot;
+
+                if (y == end) {
+                    slot = x + offset;
+                } else {
+                    slot = (y - from + 1) * getLength() + x + offset;
+                }
+
+                renderCache.setItem(inventory, slot, getRenderedItem(x, y));
             }
         }
     }
@@ -177,7 +304,66 @@ public class InventoryComponent {
     public void placeItems(final @NonNull Inventory inventory, final int offset) {
         for (int x = 0; x < getLength(); x++) {
             for (int y = 0; y < getHeight(); y++) {
-                inventory.setItem(y * getLength() + x + offset, getItem(x, y));
+                inventory.setItem(y * getLength() + x + offset, getRenderedItem(x, y));
+            }
+        }
+    }
+
+    /**
+     * This will make each pane in this component render their items in this inventory component and then places the
+     * items into the specified inventory through the specified render cache, as in
+     * {@link #placeItems(Inventory, int, RenderCache)}.
+     *
+     * @param inventory   the inventory to place the items in
+     * @param offset      the offset from which to start counting the slots
+     * @param renderCache the cache of the items previously placed into the inventory
+     * @see #display(Inventory, int)
+     * @since 3.4.0
+     */
+    public void display(final @NonNull Inventory inventory, final int offset, final @NonNull RenderCache renderCache) {
+        display();
+
+        placeItems(inventory, offset, renderCache);
+    }
+
+    /**
+     * This places the items currently existing in this inventory component into the specified inventory, in the same
+     * slots as {@link #placeItems(Inventory, int)}. Only slots whose item differs from what the render cache last
+     * placed there are written. Empty cells are written as well, so items that are no longer rendered are removed
+     * without having to clear the inventory first.
+     *
+     * @param inventory   the inventory to place the items in
+     * @param offset      the offset from which to start counting the slots
+     * @param renderCache the cache of the items previously placed into the inventory
+     * @see #placeItems(Inventory, int)
+     * @since 3.4.0
+     */
+    public void placeItems(final @NonNull Inventory inventory, final int offset, final @NonNull RenderCache renderCache) {
+        placeRows(inventory, 0, getHeight() - 1, offset, renderCache);
+    }
+
+    /**
+     * Places the items in the specified rows of this component into the specified inventory through the specified
+     * render cache, as if those rows were a component of their own, see {@link #placeItems(Inventory, int, RenderCache)}.
+     * The rows are read directly, without copying them as {@link #excludeRows(int, int)} would.
+     *
+     * @param inventory   the inventory to place the items in
+     * @param from        the first row to place, inclusive
+     * @param end         the last row to place, inclusive
+     * @param offset      the offset from which to start counting the slots
+     * @param renderCache the cache of the items previously placed into the inventory
+     * @throws IllegalArgumentException if the range includes non-existent rows
+     * @since 3.4.0
+     */
+    public void placeRows(final @NonNull Inventory inventory, final int from, final int end, final int offset,
+                          final @NonNull RenderCache renderCache) {
+        if (from < 0 || end >= getHeight()) {
+            throw new IllegalArgumentException("Specified range includes non-existent rows");
+        }
+
+        for (int x = 0; x < getLength(); x++) {
+            for (int y = from; y <= end; y++) {
+                renderCache.setItem(inventory, (y - from) * getLength() + x + offset, getRenderedItem(x, y));
             }
         }
     }
@@ -193,6 +379,24 @@ public class InventoryComponent {
      * @since 3.0.0
      */
     public void click(final @NonNull Gui gui, final @NonNull InventoryClickEvent event, final int slot) {
+        //the index reflects the panes as they were rendered, so it can only be used if none were added or removed since
+        if (slot >= 0 && slot < getLength() * getHeight() && canRenderModified()) {
+            if (this.clickIndexStarts == null) {
+                buildClickIndex();
+            }
+
+            final int[] starts = this.clickIndexStarts;
+            final Pane[] indexedPanes = this.clickIndexPanes;
+
+            for (int index = starts[slot]; index < starts[slot + 1]; index++) {
+                if (indexedPanes[index].click(gui, this, event, slot, 0, 0, getLength(), getHeight())) {
+                    break;
+                }
+            }
+
+            return;
+        }
+
         final List<@NonNull Pane> panes = new ArrayList<>(getPanes());
 
         //loop panes in reverse, because the highest priority pane (last in list) is most likely to have the right item
@@ -205,6 +409,75 @@ public class InventoryComponent {
         }
     }
 
+    /**
+     * Creates a new inventory component which shares the panes of this inventory component, instead of copying them.
+     * The returned component has the same dimensions and the same panes, but its own items, so it can be rendered
+     * independently. Since the panes are shared, changes to them are visible in both components. To change a pane in
+     * only the returned component, {@link #ownPane(Pane)} should be used to obtain a private copy of it first.
+     *
+     * @return the new inventory component
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public @NonNull InventoryComponent share() {
+        final InventoryComponent inventoryComponent = new InventoryComponent(getLength(), getHeight());
+
+        inventoryComponent.panes.addAll(this.panes);
+        inventoryComponent.sharedPanes = Collections.newSetFromMap(new IdentityHashMap<>());
+        inventoryComponent.sharedPanes.addAll(this.panes);
+
+        return inventoryComponent;
+    }
+
+    /**
+     * Gets a pane of this component which is not shared with any other component. If the specified pane was obtained
+     * through {@link #share()}, it is replaced by a copy as per {@link Pane#copy()} at the same position and the copy
+     * is returned. Otherwise, the specified pane is returned as is. Only panes that have been added directly to this
+     * component can be owned; if the specified pane is not one of them, an {@link IllegalArgumentException} will be
+     * thrown.
+     *
+     * @param pane the pane to own
+     * @param <T>  the type of pane
+     * @return a pane which is only used by this component
+     * @throws IllegalArgumentException      if the pane is not part of this component
+     * @throws UnsupportedOperationException if the pane has to be copied, but its type doesn't override
+     *                                       {@link Pane#copy()}
+     * @since 3.4.0
+     */
+    public <T extends Pane> @NonNull T ownPane(final @NonNull T pane) {
+        int index = -1;
+
+        for (int i = 0; i < this.panes.size(); i++) {
+            if (this.panes.get(i) == pane) {
+                index = i;
+                break;
+            }
+        }
+
+        if (index == -1) {
+            throw new IllegalArgumentException("Pane is not part of this inventory component");
+        }
+
+        if (this.sharedPanes == null || !this.sharedPanes.contains(pane)) {
+            return pane;
+        }
+
+        final Pane copy = pane.copy();
+
+        if (copy.getClass() != pane.getClass()) {
+            throw new UnsupportedOperationException(pane.getClass().getName() + " does not override Pane#copy");
+        }
+
+        this.sharedPanes.remove(pane);
+        this.panes.set(index, copy);
+
+        //the type is the same as that of the provided pane, as checked above
+        @SuppressWarnings("unchecked")
+        final T ownedPane = (T) copy;
+
+        return ownedPane;
+    }
+
     /**
      * Creates a deep copy of this inventory component. This means that all internal items will be cloned and all panes
      * will be copied as per their own {@link ItemStack#clone()} and {@link Pane#copy()} methods. The returned inventory
@@ -219,7 +492,7 @@ public class InventoryComponent {
 
         for (int x = 0; x < getLength(); x++) {
             for (int y = 0; y < getHeight(); y++) {
-                final ItemStack item = getItem(x, y);
+                final ItemStack item = getRenderedItem(x, y);
 
                 if (item == null) {
                     continue;
@@ -269,7 +542,7 @@ public class InventoryComponent {
             int newY = 0;
 
             for (int y = 0; y < getHeight(); y++) {
-                final ItemStack item = getItem(x, y);
+                final ItemStack item = getRenderedItem(x, y);
 
                 if (y >= from && y <= end) {
                     continue;
@@ -279,6 +552,9 @@ public class InventoryComponent {
                     newInventoryComponent.setItem(item, x, newY);
                 }
 
+                newInventoryComponent.guiItems[x][newY] = this.guiItems[x][y];
+                newInventoryComponent.owners[x][newY] = this.owners[x][y];
+
                 newY++;
             }
         }
@@ -294,11 +570,28 @@ public class InventoryComponent {
      */
     @Contract(pure = true)
     public boolean hasItem() {
-        for (int x = 0; x < getLength(); x++) {
-            for (int y = 0; y < getHeight(); y++) {
-                if (getItem(x, y) != null) {
-                    return true;
-                }
+        return getHeight() > 0 && hasItemInRows(0, getHeight() - 1);
+    }
+
+    /**
+     * Checks whether any of the specified rows of this component has at least one item. This is a view over the rows
+     * of this component and does not copy them, unlike {@link #excludeRows(int, int)}.
+     *
+     * @param from the first row to check, inclusive
+     * @param end  the last row to check, inclusive
+     * @return true if any of the rows has an item, false otherwise
+     * @throws IllegalArgumentException if the range includes non-existent rows
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public boolean hasItemInRows(final int from, final int end) {
+        if (from < 0 || end >= getHeight()) {
+            throw new IllegalArgumentException("Specified range includes non-existent rows");
+        }
+
+        for (int y = from; y <= end; y++) {
+            if (this.rowItemCounts[y] > 0) {
+                return true;
             }
         }
 
@@ -309,20 +602,24 @@ public class InventoryComponent {
      * This will make each pane in this component render their items in this inventory component. The panes are
      * displayed according to their priority, with the lowest priority rendering first and the highest priority (note:
      * highest priority, not {@link Pane.Priority#HIGHEST} priority) rendering last.
+     * <p>
+     * When this component was displayed before and its panes haven't been added, removed or reordered since, only the
+     * cells affected by panes that were modified since the previous render, as per {@link Pane#isModifiedSince(long)},
+     * are rendered again.
      *
      * @see #display(Inventory, int)
      * @since 3.0.0
      */
     public void display() {
-        clearItems();
-
-        for (final Pane pane : getPanes()) {
-            if (!pane.isVisible()) {
-                continue;
-            }
+        final long time = ModificationClock.now();
 
-            pane.display(this, 0, 0, getLength(), getHeight());
+        if (canRenderModified()) {
+            renderModified();
+        } else {
+            renderAll();
         }
+
+        this.renderedAt = time;
     }
 
     /**
@@ -337,12 +634,14 @@ public class InventoryComponent {
      */
     @Contract(pure = true)
     public boolean hasItem(final int x, final int y) {
-        return getItem(x, y) != null;
+        return getRenderedItem(x, y) != null;
     }
 
     /**
      * Gets the item at the specified coordinates, or null if this cell is empty. If the specified coordinates are not
-     * within this inventory component, an {@link IllegalArgumentException} will be thrown.
+     * within this inventory component, an {@link IllegalArgumentException} will be thrown. Items rendered from a
+     * {@link GuiItem} are shared with that gui item, so they must not be modified. Items of decorations are copied, see
+     * {@link GuiItem#decoration(ItemStack)}.
      *
      * @param x the x coordinate
      * @param y the y coordinate
@@ -357,6 +656,35 @@ public class InventoryComponent {
                 "; should be below " + getLength() + " and " + getHeight());
         }
 
+        final GuiItem guiItem = this.guiItems[x][y];
+
+        //the item of a decoration is shared across guis, so it's never handed out
+        if (guiItem != null && guiItem.isDecoration() && this.items[x][y] != null) {
+            return this.items[x][y].clone();
+        }
+
+        return this.items[x][y];
+    }
+
+    /**
+     * Gets the item at the specified coordinates as it is rendered, or null if this cell is empty. Unlike
+     * {@link #getItem(int, int)}, items of decorations are not copied, so the same cell keeps returning the same
+     * instance for as long as it isn't changed. The returned item must not be modified.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the item or null
+     * @throws IllegalArgumentException when the coordinates are out of bounds
+     * @since 3.4.0
+     */
+    @ApiStatus.Internal
+    @Contract(pure = true)
+    public @Nullable ItemStack getRenderedItem(final int x, final int y) {
+        if (!isInBounds(x, y)) {
+            throw new IllegalArgumentException("Coordinates must be in-bounds: x = " + x + ", y = " + y +
+                "; should be below " + getLength() + " and " + getHeight());
+        }
+
         return this.items[x][y];
     }
 
@@ -384,15 +712,35 @@ public class InventoryComponent {
      * @since 3.0.0
      */
     public void setItem(final @NonNull GuiItem guiItem, final int x, final int y) {
+        setItem(guiItem, x, y, null);
+    }
+
+    /**
+     * Adds the specified item in the slot at the specified positions, recording the pane that rendered it. This will
+     * override an already set item if it resides in the same position as specified. The gui item and pane are kept, so
+     * clicks on this slot can be routed to the right item without inspecting the clicked item. If the position
+     * specified is outside of the boundaries set by this component, an {@link IllegalArgumentException} will be
+     * thrown.
+     *
+     * @param guiItem the item to place in this inventory component
+     * @param x       the x coordinate of the item
+     * @param y       the y coordinate of the item
+     * @param pane    the pane that rendered the item, or null if unknown
+     * @since 3.4.0
+     */
+    public void setItem(final @NonNull GuiItem guiItem, final int x, final int y, final @Nullable Pane pane) {
         if (!isInBounds(x, y)) {
             throw new IllegalArgumentException("Coordinates must be in-bounds: x = " + x + ", y = " + y +
                 "; should be below " + getLength() + " and " + getHeight());
         }
 
-        final GuiItem copy = guiItem.copy();
-        copy.applyUUID();
+        if (!recordWrite(x, y)) {
+            return;
+        }
 
-        this.items[x][y] = copy.getItem();
+        storeItem(x, y, guiItem.getDisplayItem());
+        this.guiItems[x][y] = guiItem;
+        this.owners[x][y] = pane;
     }
 
     /**
@@ -414,7 +762,68 @@ public class InventoryComponent {
                 "; should be below " + getLength() + " and " + getHeight());
         }
 
-        this.items[x][y] = item;
+        if (!recordWrite(x, y)) {
+            return;
+        }
+
+        storeItem(x, y, item);
+        this.guiItems[x][y] = null;
+        this.owners[x][y] = null;
+    }
+
+    /**
+     * Gets the gui item that was rendered at the specified coordinates, or null if this cell is empty or its item was
+     * not set via a gui item. If the specified coordinates are not within this inventory component, an
+     * {@link IllegalArgumentException} will be thrown.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the gui item or null
+     * @throws IllegalArgumentException when the coordinates are out of bounds
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public @Nullable GuiItem getGuiItem(final int x, final int y) {
+        if (!isInBounds(x, y)) {
+            throw new IllegalArgumentException("Coordinates must be in-bounds: x = " + x + ", y = " + y +
+                "; should be below " + getLength() + " and " + getHeight());
+        }
+
+        return this.guiItems[x][y];
+    }
+
+    /**
+     * Gets the pane that rendered the gui item at the specified coordinates, or null if this cell is empty or the pane
+     * is unknown. If the specified coordinates are not within this inventory component, an
+     * {@link IllegalArgumentException} will be thrown.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the pane or null
+     * @throws IllegalArgumentException when the coordinates are out of bounds
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public @Nullable Pane getItemOwner(final int x, final int y) {
+        if (!isInBounds(x, y)) {
+            throw new IllegalArgumentException("Coordinates must be in-bounds: x = " + x + ", y = " + y +
+                "; should be below " + getLength() + " and " + getHeight());
+        }
+
+        return this.owners[x][y];
+    }
+
+    /**
+     * Gets the time at which the panes were last rendered into this component, as per {@link ModificationClock}. Panes
+     * that weren't modified since this time, as per {@link Pane#isModifiedSince(long)}, still match the recorded items.
+     *
+     * @return the time of the last render, or -1 if the items of this component don't reflect a previous render
+     * @since 3.4.0
+     */
+    @ApiStatus.Internal
+    @Contract(pure = true)
+    public long getRenderedAt() {
+        return this.renderedAt;
     }
 
     /**
@@ -450,6 +859,287 @@ public class InventoryComponent {
         return this.length;
     }
 
+    /**
+     * Checks whether the previous render can be updated by only rendering the modified panes. This is the case if
+     * there was a previous render and the panes are still the same as during that render.
+     *
+     * @return true if only the modified panes have to be rendered, false otherwise
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    private boolean canRenderModified() {
+        if (this.renderedAt < 0 || this.renderedPanes.length != this.panes.size()) {
+            return false;
+        }
+
+        for (int index = 0; index < this.renderedPanes.length; index++) {
+            if (this.renderedPanes[index] != this.panes.get(index)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Clears this component and renders all panes, recording the footprint of each pane.
+     *
+     * @since 3.4.0
+     */
+    private void renderAll() {
+        clearItems();
+
+        this.renderedPanes = this.panes.toArray(new Pane[0]);
+        this.clickIndexStarts = null;
+        this.footprints = new long[this.renderedPanes.length][];
+
+        this.rendering = true;
+
+        try {
+            for (int index = 0; index < this.renderedPanes.length; index++) {
+                final Pane pane = this.renderedPanes[index];
+
+                this.footprints[index] = new long[getFootprintSize()];
+
+                if (!pane.isVisible()) {
+                    continue;
+                }
+
+                this.recording = this.footprints[index];
+
+                pane.display(this, 0, 0, getLength(), getHeight());
+            }
+        } finally {
+            this.rendering = false;
+            this.recording = null;
+        }
+    }
+
+    /**
+     * Renders only the cells affected by panes that were modified since the previous render, in a single pass. The
+     * cells the modified panes occupied before are cleared, after which the panes are rendered in priority order: a
+     * modified pane is rendered in full, recording the cells it now occupies, which are added to the region that is
+     * rendered again; any other pane is only rendered if it touches that region, with writes outside the region being
+     * discarded. Since higher priority panes are rendered later, they still take precedence over modified panes below
+     * them.
+     *
+     * @since 3.4.0
+     */
+    private void renderModified() {
+        final int paneCount = this.renderedPanes.length;
+        final long[] region = new long[getFootprintSize()];
+        final boolean[] modifiedPanes = new boolean[paneCount];
+        boolean modified = false;
+
+        for (int index = 0; index < paneCount; index++) {
+            if (this.renderedPanes[index].isModifiedSince(this.renderedAt)) {
+                modifiedPanes[index] = true;
+                modified = true;
+
+                union(region, this.footprints[index]);
+            }
+        }
+
+        if (!modified) {
+            return;
+        }
+
+        //modified panes may have moved or been resized
+        this.clickIndexStarts = null;
+
+        for (int cell = 0; cell < getLength() * getHeight(); cell++) {
+            if (isInFootprint(region, cell)) {
+                final int x = cell % getLength();
+                final int y = cell / getLength();
+
+                storeItem(x, y, null);
+                this.guiItems[x][y] = null;
+                this.owners[x][y] = null;
+            }
+        }
+
+        this.rendering = true;
+
+        try {
+            for (int index = 0; index < paneCount; index++) {
+                final Pane pane = this.renderedPanes[index];
+
+                if (modifiedPanes[index]) {
+                    final long[] footprint = new long[getFootprintSize()];
+
+                    if (pane.isVisible()) {
+                        this.recording = footprint;
+                        this.clip = null;
+
+                        pane.display(this, 0, 0, getLength(), getHeight());
+                    }
+
+                    this.footprints[index] = footprint;
+
+                    union(region, footprint);
+                    continue;
+                }
+
+                if (!pane.isVisible() || !intersects(this.footprints[index], region)) {
+                    continue;
+                }
+
+                //the footprint is already known, so nothing is recorded
+                this.recording = null;
+                this.clip = region;
+
+                pane.display(this, 0, 0, getLength(), getHeight());
+            }
+        } finally {
+            this.rendering = false;
+            this.recording = null;
+            this.clip = null;
+        }
+    }
+
+    /**
+     * Records the specified cell as written by the current render and checks whether the item may actually be written.
+     * If nothing is being rendered, the previous render is discarded instead, since this component no longer reflects
+     * it.
+     *
+     * @param x the x coordinate of the cell
+     * @param y the y coordinate of the cell
+     * @return true if the item should be written, false otherwise
+     * @since 3.4.0
+     */
+    private boolean recordWrite(final int x, final int y) {
+        if (!this.rendering) {
+            this.renderedAt = -1;
+
+            return true;
+        }
+
+        final int cell = y * getLength() + x;
+
+        if (this.recording != null) {
+            this.recording[cell >>> 6] |= 1L << cell;
+        }
+
+        return this.clip == null || isInFootprint(this.clip, cell);
+    }
+
+    /**
+     * Gets the amount of words needed for a footprint of this component
+     *
+     * @return the footprint size
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    private int getFootprintSize() {
+        return (getLength() * getHeight() + 63) >>> 6;
+    }
+
+    /**
+     * Checks whether the specified cell is part of the specified footprint
+     *
+     * @param footprint the footprint
+     * @param cell      the index of the cell
+     * @return true if the cell is part of the footprint, false otherwise
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    private static boolean isInFootprint(final long @NonNull [] footprint, final int cell) {
+        return (footprint[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Adds all cells of the source footprint to the target footprint
+     *
+     * @param target the footprint to add to
+     * @param source the footprint to add
+     * @since 3.4.0
+     */
+    private static void union(final long @NonNull [] target, final long @NonNull [] source) {
+        for (int index = 0; index < target.length; index++) {
+            target[index] |= source[index];
+        }
+    }
+
+    /**
+     * Checks whether the two footprints share at least one cell
+     *
+     * @param first  the first footprint
+     * @param second the second footprint
+     * @return true if the footprints intersect, false otherwise
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    private static boolean intersects(final long @NonNull [] first, final long @NonNull [] second) {
+        for (int index = 0; index < first.length; index++) {
+            if ((first[index] & second[index]) != 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Builds the index of the panes each cell's clicks may be routed to, from the panes as they were last rendered.
+     * Per cell, the panes are ordered from the highest to the lowest priority, which is the order in which they are
+     * asked to handle a click.
+     *
+     * @since 3.4.0
+     */
+    private void buildClickIndex() {
+        final int cells = getLength() * getHeight();
+        final int[] starts = new int[cells + 1];
+
+        for (int cell = 0; cell < cells; cell++) {
+            int count = 0;
+
+            for (final Pane pane : this.renderedPanes) {
+                if (pane.isClickable(cell, getLength(), getHeight())) {
+                    count++;
+                }
+            }
+
+            starts[cell + 1] = starts[cell] + count;
+        }
+
+        final Pane[] indexedPanes = new Pane[starts[cells]];
+
+        for (int cell = 0; cell < cells; cell++) {
+            int position = starts[cell];
+
+            for (int index = this.renderedPanes.length - 1; index >= 0; index--) {
+                final Pane pane = this.renderedPanes[index];
+
+                if (pane.isClickable(cell, getLength(), getHeight())) {
+                    indexedPanes[position++] = pane;
+                }
+            }
+        }
+
+        this.clickIndexPanes = indexedPanes;
+        this.clickIndexStarts = starts;
+    }
+
+    /**
+     * Stores the specified item in the specified cell, keeping the item count of its row up-to-date.
+     *
+     * @param x    the x coordinate of the cell
+     * @param y    the y coordinate of the cell
+     * @param item the item to store, or null to empty the cell
+     * @since 3.4.0
+     */
+    private void storeItem(final int x, final int y, final @Nullable ItemStack item) {
+        final ItemStack previous = this.items[x][y];
+
+        if (previous == null && item != null) {
+            this.rowItemCounts[y]++;
+        } else if (previous != null && item == null) {
+            this.rowItemCounts[y]--;
+        }
+
+        this.items[x][y] = item;
+    }
+
     /**
      * Clears the items of this inventory component.
      *
@@ -459,6 +1149,16 @@ public class InventoryComponent {
         for (final ItemStack @NonNull [] items : this.items) {
             Arrays.fill(items, null);
         }
+
+        Arrays.fill(this.rowItemCounts, 0);
+
+        for (final GuiItem @NonNull [] guiItems : this.guiItems) {
+            Arrays.fill(guiItems, null);
+        }
+
+        for (final Pane @NonNull [] owners : this.owners) {
+            Arrays.fill(owners, null);
+        }
     }
 
     /**
@@ -0,0 +1,358 @@
+package dev.kokiriglade.popcorn.inventory.gui;
+
+import com.google.common.collect.MapMaker;
+import dev.kokiriglade.popcorn.inventory.gui.type.util.Gui;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.inventory.Inventory;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.jetbrains.annotations.Contract;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The guis a player has navigated through, most recent first. A gui is added once the player opens another inventory
+ * from it, and removed once the player returns to it, so {@link #navigateBack(HumanEntity)} returns to the gui the
+ * player came from.
+ * <p>
+ * Guis that are stored in a plain storage inventory, such as chests and hoppers, keep their rendered contents while they
+ * are in the history. Returning to such a gui only has to place the items that changed since it was left, instead of
+ * rendering all of its items again. The history holds at most {@link #getMaxDepth()} guis; once it's full, the oldest
+ * gui is evicted and its contents are released. Across all players, at most {@link #getMaxRetainedSlots()} slots of
+ * contents are retained; once that is exceeded, the contents that were retained the longest are released, after which
+ * returning to their gui renders it in full.
+ *
+ * @since 3.4.0
+ */
+public final class NavigationHistory {
+
+    /**
+     * The history of each player
+     */
+    private static final @NonNull Map<HumanEntity, NavigationHistory> HISTORIES = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * The entries of all histories whose contents are retained, from least to most recently retained
+     */
+    private static final @NonNull Deque<@NonNull Entry> RETAINED = new ConcurrentLinkedDeque<>();
+
+    /**
+     * The amount of slots retained across all histories
+     */
+    private static final @NonNull AtomicInteger RETAINED_SLOTS = new AtomicInteger();
+
+    /**
+     * The maximum amount of guis in a history
+     */
+    private static volatile int maxDepth = 8;
+
+    /**
+     * The maximum amount of slots retained across all histories
+     */
+    private static volatile int maxRetainedSlots = 4096;
+
+    /**
+     * The guis in this history, most recent first
+     */
+    private final @NonNull Deque<@NonNull Entry> entries = new ArrayDeque<>();
+
+    /**
+     * Creates a new history
+     *
+     * @since 3.4.0
+     */
+    private NavigationHistory() {
+    }
+
+    /**
+     * Gets the history of the specified player. This must be accessed from the player's thread.
+     *
+     * @param humanEntity the player
+     * @return the history of the player
+     * @since 3.4.0
+     */
+    public static @NonNull NavigationHistory of(final @NonNull HumanEntity humanEntity) {
+        return HISTORIES.computeIfAbsent(humanEntity, ignored -> new NavigationHistory());
+    }
+
+    /**
+     * Shows the gui the specified player navigated to their current gui from. If their history is empty, this does
+     * nothing.
+     *
+     * @param humanEntity the player
+     * @return true if the player was navigated back, false if their history is empty
+     * @since 3.4.0
+     */
+    public static boolean navigateBack(final @NonNull HumanEntity humanEntity) {
+        final Gui previous = of(humanEntity).peek();
+
+        if (previous == null) {
+            return false;
+        }
+
+        previous.show(humanEntity);
+        return true;
+    }
+
+    /**
+     * Sets the maximum amount of guis a history holds. Histories that hold more guis are trimmed the next time a gui is
+     * added to them.
+     *
+     * @param maxDepth the maximum amount of guis
+     * @throws IllegalArgumentException if the maximum is negative
+     * @since 3.4.0
+     */
+    public static void setMaxDepth(final int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Max depth may not be negative");
+        }
+
+        NavigationHistory.maxDepth = maxDepth;
+    }
+
+    /**
+     * Gets the maximum amount of guis a history holds. The default is eight.
+     *
+     * @return the maximum amount of guis
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public static int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Sets the maximum amount of slots whose contents are retained across all histories. Once this is exceeded, the
+     * contents that were retained the longest are released.
+     *
+     * @param maxRetainedSlots the maximum amount of slots
+     * @throws IllegalArgumentException if the maximum is negative
+     * @since 3.4.0
+     */
+    public static void setMaxRetainedSlots(final int maxRetainedSlots) {
+        if (maxRetainedSlots < 0) {
+            throw new IllegalArgumentException("Max retained slots may not be negative");
+        }
+
+        NavigationHistory.maxRetainedSlots = maxRetainedSlots;
+    }
+
+    /**
+     * Gets the maximum amount of slots whose contents are retained across all histories. The default is 4096, which
+     * is the size of about 75 double chests.
+     *
+     * @return the maximum amount of slots
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public static int getMaxRetainedSlots() {
+        return maxRetainedSlots;
+    }
+
+    /**
+     * Gets the amount of slots whose contents are currently retained across all histories.
+     *
+     * @return the amount of retained slots
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public static int getRetainedSlots() {
+        return RETAINED_SLOTS.get();
+    }
+
+    /**
+     * Gets the gui the player most recently navigated away from.
+     *
+     * @return the most recent gui, or null if this history is empty
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public @Nullable Gui peek() {
+        final Entry entry = entries.peekFirst();
+
+        return entry == null ? null : entry.gui;
+    }
+
+    /**
+     * Gets the amount of guis in this history.
+     *
+     * @return the amount of guis
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all guis from this history and releases their contents.
+     *
+     * @since 3.4.0
+     */
+    public void clear() {
+        Entry entry;
+
+        while ((entry = entries.pollFirst()) != null) {
+            entry.release();
+        }
+    }
+
+    /**
+     * Adds the specified gui, which the player is navigating away from, to this history. If the history is full, the
+     * oldest guis are evicted.
+     *
+     * @param gui       the gui
+     * @param inventory the inventory of the gui
+     * @param retained  whether the inventory kept its contents
+     * @since 3.4.0
+     */
+    void push(final @NonNull Gui gui, final @NonNull Inventory inventory, final boolean retained) {
+        final Entry entry = new Entry(gui, inventory, retained);
+
+        entries.addFirst(entry);
+
+        if (retained) {
+            RETAINED.addLast(entry);
+            RETAINED_SLOTS.addAndGet(entry.slots);
+        }
+
+        while (entries.size() > maxDepth) {
+            entries.removeLast().release();
+        }
+
+        while (RETAINED_SLOTS.get() > maxRetainedSlots) {
+            final Entry oldest = RETAINED.pollFirst();
+
+            if (oldest == null) {
+                break;
+            }
+
+            oldest.release();
+        }
+    }
+
+    /**
+     * Handles the player opening the specified gui. If the gui is in this history, the player returned to it, so it
+     * and all guis the player visited after it are removed. The contents of the latter are released.
+     *
+     * @param gui the gui that was opened
+     * @since 3.4.0
+     */
+    void opened(final @NonNull Gui gui) {
+        boolean found = false;
+
+        for (final Entry entry : entries) {
+            if (entry.gui == gui) {
+                found = true;
+                break;
+            }
+        }
+
+        if (!found) {
+            return;
+        }
+
+        final Iterator<Entry> iterator = entries.iterator();
+
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next();
+
+            iterator.remove();
+
+            if (entry.gui == gui) {
+                //the contents are in use again, so they no longer count as retained
+                entry.forget();
+                return;
+            }
+
+            entry.release();
+        }
+    }
+
+    /**
+     * A gui in a history
+     *
+     * @since 3.4.0
+     */
+    private static final class Entry {
+
+        /**
+         * The gui
+         */
+        private final @NonNull Gui gui;
+
+        /**
+         * The inventory of the gui when the player navigated away from it
+         */
+        private final @NonNull Inventory inventory;
+
+        /**
+         * Whether the inventory kept its contents
+         */
+        private final boolean retained;
+
+        /**
+         * The amount of slots of the inventory
+         */
+        private final int slots;
+
+        /**
+         * Whether the contents are no longer counted as retained
+         */
+        private final @NonNull AtomicBoolean forgotten = new AtomicBoolean();
+
+        /**
+         * Creates a new entry
+         *
+         * @param gui       the gui
+         * @param inventory the inventory of the gui
+         * @param retained  whether the inventory kept its contents
+         * @since 3.4.0
+         */
+        private Entry(final @NonNull Gui gui, final @NonNull Inventory inventory, final boolean retained) {
+            this.gui = gui;
+            this.inventory = inventory;
+            this.retained = retained;
+            this.slots = inventory.getSize();
+        }
+
+        /**
+         * Clears the contents the inventory kept, unless the gui is still being viewed.
+         *
+         * @since 3.4.0
+         */
+        private void release() {
+            if (!forget() || gui.getViewerCount() > 0) {
+                return;
+            }
+
+            inventory.clear();
+            gui.invalidateRenderCaches();
+        }
+
+        /**
+         * Stops counting the contents the inventory kept as retained, without clearing them.
+         *
+         * @return true if the contents were counted as retained, false otherwise
+         * @since 3.4.0
+         */
+        private boolean forget() {
+            if (!retained || !forgotten.compareAndSet(false, true)) {
+                return false;
+            }
+
+            RETAINED.remove(this);
+            RETAINED_SLOTS.addAndGet(-slots);
+
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package dev.kokiriglade.popcorn.inventory.gui;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.jetbrains.annotations.Contract;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the items that were last written into an inventory, so that rendering it again only writes the slots whose
+ * item changed. Since the server only sends the slots that changed to the viewers of an inventory, this allows a gui to
+ * be updated without reopening it and without resending its entire contents.
+ * <p>
+ * The cache tracks a single inventory at a time. When items are placed into a different inventory, the cache starts
+ * over. If the contents of the tracked inventory are changed by anything other than this cache, {@link #invalidate()}
+ * has to be called, otherwise those slots may not be written again.
+ *
+ * @since 3.4.0
+ */
+public final class RenderCache {
+
+    /**
+     * The inventory of which the contents are cached, or null if nothing has been cached yet
+     */
+    private @Nullable Inventory inventory;
+
+    /**
+     * The items that were last written into the inventory, indexed by slot
+     */
+    private @Nullable ItemStack @NonNull [] items = new ItemStack[0];
+
+    /**
+     * Whether the item in {@link #items} is known to be in the inventory, indexed by slot
+     */
+    private boolean @NonNull [] known = new boolean[0];
+
+    /**
+     * Places the specified item in the specified slot of the inventory, unless the cache knows that this exact item is
+     * already there.
+     *
+     * @param inventory the inventory to place the item in
+     * @param slot      the slot to place the item in
+     * @param item      the item to place, or null to empty the slot
+     * @return true if the inventory was written to, false if the slot was already up-to-date
+     * @since 3.4.0
+     */
+    public boolean setItem(final @NonNull Inventory inventory, final int slot, final @Nullable ItemStack item) {
+        if (this.inventory != inventory) {
+            this.inventory = inventory;
+            this.items = new ItemStack[inventory.getSize()];
+            this.known = new boolean[inventory.getSize()];
+        }
+
+        if (this.known[slot] && matches(this.items[slot], item)) {
+            return false;
+        }
+
+        inventory.setItem(slot, item);
+
+        this.items[slot] = item;
+        this.known[slot] = true;
+        return true;
+    }
+
+    /**
+     * Forgets what was placed into the inventory, so every slot will be written again the next time it is placed. This
+     * should be called whenever the contents of the inventory may have been changed by something other than this
+     * cache.
+     *
+     * @since 3.4.0
+     */
+    public void invalidate() {
+        Arrays.fill(this.items, null);
+        Arrays.fill(this.known, false);
+    }
+
+    /**
+     * Checks whether the item that was last written can stand in for the new item.
+     *
+     * @param previous the item that was last written
+     * @param item     the new item
+     * @return true if they are equal, false otherwise
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    private static boolean matches(final @Nullable ItemStack previous, final @Nullable ItemStack item) {
+        if (previous == item) {
+            return true;
+        }
+
+        return previous != null && previous.equals(item);
+    }
+
+}
@@ -1,6 +1,5 @@
 package dev.kokiriglade.popcorn.inventory.gui.type;
 
-import dev.kokiriglade.popcorn.inventory.HumanEntityCache;
 import dev.kokiriglade.popcorn.inventory.gui.GuiItem;
 import dev.kokiriglade.popcorn.inventory.gui.InventoryComponent;
 import dev.kokiriglade.popcorn.inventory.gui.type.util.InventoryBased;
@@ -63,28 +62,53 @@ public class BarrelGui extends NamedGui implements MergedGui, InventoryBased {
             markChanges();
         }
 
-        getInventory().clear();
+        render();
 
-        final int height = getInventoryComponent().getHeight();
+        placeBottomItems(humanEntity);
 
-        getInventoryComponent().display();
+        humanEntity.openInventory(getInventory());
+    }
 
-        final InventoryComponent topComponent = getInventoryComponent().excludeRows(height - 4, height - 1);
-        final InventoryComponent bottomComponent = getInventoryComponent().excludeRows(0, height - 5);
+    @Override
+    protected boolean updateInPlace() {
+        if (isDirty()) {
+            return false;
+        }
 
-        topComponent.placeItems(getInventory(), 0);
+        render();
 
-        if (bottomComponent.hasItem()) {
-            final HumanEntityCache humanEntityCache = getHumanEntityCache();
+        for (final HumanEntity viewer : getViewers()) {
+            placeBottomItems(viewer);
+        }
 
-            if (!humanEntityCache.contains(humanEntity)) {
-                humanEntityCache.storeAndClear(humanEntity);
-            }
+        return true;
+    }
 
-            bottomComponent.placeItems(humanEntity.getInventory(), 0);
-        }
+    /**
+     * Renders the panes of this gui and places the top rows into the inventory of this gui. The bottom four rows
+     * represent the player inventory and are placed into the inventory of each viewer separately.
+     *
+     * @since 3.4.0
+     */
+    private void render() {
+        final int height = getInventoryComponent().getHeight();
 
-        humanEntity.openInventory(getInventory());
+        getInventoryComponent().display();
+
+        placeTopItems(getInventoryComponent(), 0, height - 5, getInventory());
+    }
+
+    /**
+     * Places the bottom four rows of the inventory component, which represent the player inventory, into the
+     * inventory of the specified viewer.
+     *
+     * @param humanEntity the viewer
+     * @since 3.4.0
+     */
+    private void placeBottomItems(final @NonNull HumanEntity humanEntity) {
+        final int height = getInventoryComponent().getHeight();
+
+        placePlayerInventoryItems(humanEntity, getInventoryComponent(), height - 4, height - 1);
     }
 
     @Contract(pure = true)
@@ -103,6 +127,32 @@ public class BarrelGui extends NamedGui implements MergedGui, InventoryBased {
         return gui;
     }
 
+    /**
+     * Creates a session of this gui. A session is a new gui with the same properties and callbacks as this gui, which
+     * shares the panes of this gui instead of copying them like {@link #copy()} does. This makes sessions cheap to
+     * create, for example to show one gui definition to many players. This gui then acts as a template: changes to its
+     * panes are visible in all of its sessions. To change a pane for a single session only, that session should first
+     * obtain its own copy of the pane through {@link InventoryComponent#ownPane(Pane)}. Panes added to a session are
+     * only part of that session.
+     *
+     * @return a new session of this gui
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public @NonNull BarrelGui createSession() {
+        final BarrelGui gui = new BarrelGui(getTitle(), super.plugin);
+
+        gui.inventoryComponent = inventoryComponent.share();
+
+        gui.setOnTopClick(this.onTopClick);
+        gui.setOnBottomClick(this.onBottomClick);
+        gui.setOnGlobalClick(this.onGlobalClick);
+        gui.setOnOutsideClick(this.onOutsideClick);
+        gui.setOnClose(this.onClose);
+
+        return gui;
+    }
+
     @Override
     public @NonNull Inventory getInventory() {
         if (this.inventory == null) {
@@ -120,7 +170,9 @@ public class BarrelGui extends NamedGui implements MergedGui, InventoryBased {
     @Contract(pure = true)
     @Override
     public boolean isPlayerInventoryUsed() {
-        return getInventoryComponent().excludeRows(0, getInventoryComponent().getHeight() - 5).hasItem();
+        final int height = getInventoryComponent().getHeight();
+
+        return getInventoryComponent().hasItemInRows(height - 4, height - 1);
     }
 
     @Override
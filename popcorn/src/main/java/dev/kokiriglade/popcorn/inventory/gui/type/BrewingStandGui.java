@@ -1,6 +1,5 @@
 package dev.kokiriglade.popcorn.inventory.gui.type;
 
-import dev.kokiriglade.popcorn.inventory.HumanEntityCache;
 import dev.kokiriglade.popcorn.inventory.gui.InventoryComponent;
 import dev.kokiriglade.popcorn.inventory.gui.type.util.InventoryBased;
 import dev.kokiriglade.popcorn.inventory.gui.type.util.NamedGui;
@@ -83,26 +82,41 @@ public class BrewingStandGui extends NamedGui implements InventoryBased {
             markChanges();
         }
 
-        getInventory().clear();
+        render();
 
-        getFirstBottleComponent().display(getInventory(), 0);
-        getSecondBottleComponent().display(getInventory(), 1);
-        getThirdBottleComponent().display(getInventory(), 2);
-        getPotionIngredientComponent().display(getInventory(), 3);
-        getBlazePowderComponent().display(getInventory(), 4);
-        getPlayerInventoryComponent().display();
+        placePlayerInventoryItems(humanEntity, getPlayerInventoryComponent());
+
+        humanEntity.openInventory(getInventory());
+    }
 
-        if (getPlayerInventoryComponent().hasItem()) {
-            final HumanEntityCache humanEntityCache = getHumanEntityCache();
+    @Override
+    protected boolean updateInPlace() {
+        if (isDirty()) {
+            return false;
+        }
 
-            if (!humanEntityCache.contains(humanEntity)) {
-                humanEntityCache.storeAndClear(humanEntity);
-            }
+        render();
 
-            getPlayerInventoryComponent().placeItems(humanEntity.getInventory(), 0);
+        for (final HumanEntity viewer : getViewers()) {
+            placePlayerInventoryItems(viewer, getPlayerInventoryComponent());
         }
 
-        humanEntity.openInventory(getInventory());
+        return true;
+    }
+
+    /**
+     * Renders the panes of this gui and places their items into the inventory of this gui. The player inventory
+     * component is rendered as well, but not placed.
+     *
+     * @since 3.4.0
+     */
+    private void render() {
+        getFirstBottleComponent().display(getInventory(), 0, this.renderCache);
+        getSecondBottleComponent().display(getInventory(), 1, this.renderCache);
+        getThirdBottleComponent().display(getInventory(), 2, this.renderCache);
+        getPotionIngredientComponent().display(getInventory(), 3, this.renderCache);
+        getBlazePowderComponent().display(getInventory(), 4, this.renderCache);
+        getPlayerInventoryComponent().display();
     }
 
     @Contract(pure = true)
@@ -1,5 +1,6 @@
 package dev.kokiriglade.popcorn.inventory.gui.type;
 
+import dev.kokiriglade.popcorn.inventory.GuiScheduler;
 import dev.kokiriglade.popcorn.inventory.HumanEntityCache;
 import dev.kokiriglade.popcorn.inventory.gui.InventoryComponent;
 import dev.kokiriglade.popcorn.inventory.gui.type.abstraction.CartographyTableInventory;
@@ -187,7 +188,7 @@ public class CartographyTableGui extends NamedGui implements InventoryBased {
             cartographyTableInventory.sendItems(player, getTopItems());
         } else if (slot >= 0 && slot <= 2) {
             //the client rejects the output item if send immediately
-            Bukkit.getScheduler().runTask(super.plugin, () ->
+            GuiScheduler.runForEntity(super.plugin, player, () ->
                 cartographyTableInventory.sendItems(player, getTopItems()));
 
             if (event.isCancelled()) {
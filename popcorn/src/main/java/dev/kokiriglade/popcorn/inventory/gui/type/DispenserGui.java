@@ -1,6 +1,5 @@
 package dev.kokiriglade.popcorn.inventory.gui.type;
 
-import dev.kokiriglade.popcorn.inventory.HumanEntityCache;
 import dev.kokiriglade.popcorn.inventory.gui.InventoryComponent;
 import dev.kokiriglade.popcorn.inventory.gui.type.util.InventoryBased;
 import dev.kokiriglade.popcorn.inventory.gui.type.util.NamedGui;
@@ -63,22 +62,40 @@ public class DispenserGui extends NamedGui implements InventoryBased {
             markChanges();
         }
 
-        getInventory().clear();
+        render();
 
-        getContentsComponent().display(getInventory(), 0);
-        getPlayerInventoryComponent().display();
+        placePlayerInventoryItems(humanEntity, getPlayerInventoryComponent());
+
+        humanEntity.openInventory(getInventory());
+    }
 
-        if (getPlayerInventoryComponent().hasItem()) {
-            final HumanEntityCache humanEntityCache = getHumanEntityCache();
+    @Override
+    protected boolean updateInPlace() {
+        if (isDirty()) {
+            return false;
+        }
 
-            if (!humanEntityCache.contains(humanEntity)) {
-                humanEntityCache.storeAndClear(humanEntity);
-            }
+        render();
 
-            getPlayerInventoryComponent().placeItems(humanEntity.getInventory(), 0);
+        for (final HumanEntity viewer : getViewers()) {
+            placePlayerInventoryItems(viewer, getPlayerInventoryComponent());
         }
 
-        humanEntity.openInventory(getInventory());
+        return true;
+    }
+
+    /**
+     * Renders the panes of this gui and places their items into the inventory of this gui. The player inventory
+     * component is rendered as well, but not placed.
+     *
+     * @since 3.4.0
+     */
+    private void render() {
+        getContentsComponent().display();
+
+        placeTopItems(getContentsComponent(), getInventory());
+
+        getPlayerInventoryComponent().display();
     }
 
     @Contract(pure = true)
@@ -180,6 +180,12 @@ public class CartographyTableInventoryImpl extends CartographyTableInventory {
                     public @NonNull InventoryHolder getHolder() {
                         return inventoryHolder;
                     }
+
+                    @Contract(pure = true)
+                    @Override
+                    public @NonNull InventoryHolder getHolder(final boolean useSnapshot) {
+                        return inventoryHolder;
+                    }
                 };
 
                 bukkitEntity = new CraftInventoryView(player, inventory, this);
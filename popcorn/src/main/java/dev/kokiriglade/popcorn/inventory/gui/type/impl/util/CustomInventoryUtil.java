@@ -1,8 +1,15 @@
 package dev.kokiriglade.popcorn.inventory.gui.type.impl.util;
 
+import io.papermc.paper.adventure.PaperAdventure;
+import net.kyori.adventure.text.Component;
 import net.minecraft.core.NonNullList;
+import net.minecraft.network.protocol.game.ClientboundOpenScreenPacket;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.inventory.AbstractContainerMenu;
 import net.minecraft.world.item.ItemStack;
+import org.bukkit.craftbukkit.entity.CraftPlayer;
 import org.bukkit.craftbukkit.inventory.CraftItemStack;
+import org.bukkit.entity.HumanEntity;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.jetbrains.annotations.Contract;
@@ -39,4 +46,32 @@ public final class CustomInventoryUtil {
         return nmsItems;
     }
 
+    /**
+     * Changes the title of the inventory the specified human entity has open, without closing it. The open screen
+     * packet is sent again with the same container id, followed by the contents of the container, since the client
+     * clears them when a screen is opened. The title of the menu on the server is left as it is, as it can only be set
+     * once. If the human entity isn't a player or doesn't have an inventory open, this does nothing.
+     *
+     * @param humanEntity the human entity to send the title to
+     * @param title       the new title
+     * @since 3.4.0
+     */
+    public static void sendTitle(final @NonNull HumanEntity humanEntity, final @NonNull Component title) {
+        if (!(humanEntity instanceof CraftPlayer craftPlayer)) {
+            return;
+        }
+
+        final ServerPlayer serverPlayer = craftPlayer.getHandle();
+        final AbstractContainerMenu menu = serverPlayer.containerMenu;
+
+        if (menu == serverPlayer.inventoryMenu) {
+            return;
+        }
+
+        final net.minecraft.network.chat.Component message = PaperAdventure.asVanilla(title);
+
+        serverPlayer.connection.send(new ClientboundOpenScreenPacket(menu.containerId, menu.getType(), message));
+        menu.sendAllDataToRemote();
+    }
+
 }
@@ -0,0 +1,123 @@
+package dev.kokiriglade.popcorn.inventory.gui.type.impl.util;
+
+import dev.kokiriglade.popcorn.inventory.gui.InventoryComponent;
+import net.minecraft.core.NonNullList;
+import net.minecraft.network.protocol.game.ClientboundContainerSetSlotPacket;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.Container;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.item.ItemStack;
+import org.bukkit.craftbukkit.entity.CraftPlayer;
+import org.bukkit.craftbukkit.inventory.CraftInventory;
+import org.bukkit.craftbukkit.inventory.CraftItemStack;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.inventory.Inventory;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Collection;
+
+/**
+ * Renders an inventory component into a storage inventory at the packet level. The component's items are converted to
+ * NMS items once, and the converted list is kept and shared between all viewers; an item is only converted again once
+ * the component holds a different item in its slot. Changed slots are written into the container directly, bypassing
+ * the Bukkit inventory, and are sent to the viewers right away. The viewers' menus are told that these slots are up to
+ * date, so the server doesn't send them again when it synchronizes the menus.
+ * <p>
+ * The container itself still holds the items, since the server uses it to resynchronize the viewers after a cancelled
+ * click.
+ *
+ * @since 3.4.0
+ */
+public final class PacketRenderer {
+
+    /**
+     * The Bukkit items the NMS items were converted from, by slot. These are compared by reference.
+     */
+    private org.bukkit.inventory.@Nullable ItemStack @NonNull [] sources = new org.bukkit.inventory.ItemStack[0];
+
+    /**
+     * The converted items, by slot
+     */
+    private @NonNull NonNullList<ItemStack> items = NonNullList.create();
+
+    /**
+     * The slots that were written during the current render
+     */
+    private int @NonNull [] changedSlots = new int[0];
+
+    /**
+     * Places the items in the specified rows of the specified component into the specified inventory, starting at the
+     * first slot, and sends the slots that changed to the specified viewers. Viewers that don't have the inventory open
+     * are skipped.
+     *
+     * @param inventoryComponent the component to render
+     * @param from               the first row to render, inclusive
+     * @param end                the last row to render, inclusive
+     * @param inventory          the inventory to render into
+     * @param viewers            the viewers of the inventory
+     * @since 3.4.0
+     */
+    public void render(final @NonNull InventoryComponent inventoryComponent, final int from, final int end,
+                       final @NonNull Inventory inventory, final @NonNull Collection<? extends @NonNull HumanEntity> viewers) {
+        final int length = inventoryComponent.getLength();
+        final int size = length * (end - from + 1);
+
+        if (sources.length != size) {
+            this.sources = new org.bukkit.inventory.ItemStack[size];
+            this.items = NonNullList.withSize(size, ItemStack.EMPTY);
+            this.changedSlots = new int[size];
+        }
+
+        final Container container = ((CraftInventory) inventory).getInventory();
+        int changedCount = 0;
+
+        for (int y = from; y <= end; y++) {
+            for (int x = 0; x < length; x++) {
+                final int slot = (y - from) * length + x;
+                final org.bukkit.inventory.ItemStack source = inventoryComponent.getRenderedItem(x, y);
+
+                if (source != sources[slot]) {
+                    sources[slot] = source;
+                    items.set(slot, CraftItemStack.asNMSCopy(source));
+                }
+
+                final ItemStack item = items.get(slot);
+
+                //compared against the container, so changes made by anything else are overwritten as well
+                if (ItemStack.matches(container.getItem(slot), item)) {
+                    continue;
+                }
+
+                //the container gets its own copy, since an uncancelled click may modify it
+                container.setItem(slot, item.copy());
+                changedSlots[changedCount++] = slot;
+            }
+        }
+
+        if (changedCount == 0) {
+            return;
+        }
+
+        for (final HumanEntity viewer : viewers) {
+            final ServerPlayer serverPlayer = ((CraftPlayer) viewer).getHandle();
+            final AbstractContainerMenu menu = serverPlayer.containerMenu;
+
+            if (((CraftInventory) menu.getBukkitView().getTopInventory()).getInventory() != container) {
+                continue;
+            }
+
+            for (int index = 0; index < changedCount; index++) {
+                final int slot = changedSlots[index];
+                final ItemStack item = items.get(slot);
+
+                menu.setRemoteSlot(slot, item);
+
+                serverPlayer.connection.send(
+                    new ClientboundContainerSetSlotPacket(menu.containerId, menu.incrementStateId(), slot, item)
+                );
+            }
+        }
+    }
+
+}
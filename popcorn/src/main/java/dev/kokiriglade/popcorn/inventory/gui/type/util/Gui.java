@@ -1,7 +1,12 @@
 package dev.kokiriglade.popcorn.inventory.gui.type.util;
 
+import com.google.common.collect.MapMaker;
 import dev.kokiriglade.popcorn.inventory.HumanEntityCache;
+import dev.kokiriglade.popcorn.inventory.gui.ClickLimit;
 import dev.kokiriglade.popcorn.inventory.gui.GuiListener;
+import dev.kokiriglade.popcorn.inventory.gui.InventoryComponent;
+import dev.kokiriglade.popcorn.inventory.gui.RenderCache;
+import dev.kokiriglade.popcorn.inventory.gui.type.impl.util.PacketRenderer;
 import dev.kokiriglade.popcorn.inventory.pane.Pane;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.HumanEntity;
@@ -18,7 +23,7 @@ import org.jetbrains.annotations.Contract;
 
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 /**
@@ -30,15 +35,16 @@ import java.util.function.Consumer;
 public abstract class Gui {
 
     /**
-     * A map containing the relations between inventories and their respective gui. This is needed because Bukkit and
-     * Spigot ignore inventory holders for beacons, brewing stands, dispensers, droppers, furnaces and hoppers. The
-     * inventory holder for beacons is already being set properly via NMS, but this contains the other inventory types.
+     * A map containing the relations between inventories and their respective gui, keyed by identity. This is needed
+     * because Bukkit and Spigot ignore inventory holders for beacons, brewing stands, dispensers, droppers, furnaces and
+     * hoppers. Inventories of other guis are added once they're looked up through their holder, so later lookups don't
+     * have to go through the holder again.
      */
-    private static final @NonNull Map<Inventory, Gui> GUI_INVENTORIES = new WeakHashMap<>();
+    private static final @NonNull Map<Inventory, Gui> GUI_INVENTORIES = new MapMaker().weakKeys().makeMap();
     /**
      * Whether listeners have been registered by some gui
      */
-    private static boolean hasRegisteredListeners;
+    private static final @NonNull AtomicBoolean HAS_REGISTERED_LISTENERS = new AtomicBoolean();
     /**
      * The plugin that owns this gui
      */
@@ -88,6 +94,27 @@ public abstract class Gui {
      * is used to indicate that inventory close events due to updating should be ignored.
      */
     boolean updating = false;
+    /**
+     * Whether clicked items should be validated against their internal data after being resolved by their slot. This
+     * is off by default, since the rendered contents of a gui cannot be changed by players.
+     */
+    private boolean validateClickedItems = false;
+    /**
+     * The limit on how fast players may click in this gui, or null if the default limit applies
+     */
+    private @Nullable ClickLimit clickLimit;
+    /**
+     * The items that were last placed into the inventory of this gui
+     */
+    protected final @NonNull RenderCache renderCache = new RenderCache();
+    /**
+     * The items that were last placed into the player inventory of each viewer
+     */
+    private final @NonNull Map<HumanEntity, RenderCache> viewerRenderCaches = new MapMaker().weakKeys().makeMap();
+    /**
+     * Renders the inventory of this gui at the packet level, or null if packet rendering is disabled
+     */
+    private @Nullable PacketRenderer packetRenderer;
     /**
      * The parent gui. This gui will be navigated to once a player closes this gui. If this is null, the player will not
      * be redirected to another gui once they close this gui.
@@ -103,24 +130,33 @@ public abstract class Gui {
     public Gui(final @NonNull Plugin plugin) {
         this.plugin = plugin;
 
-        if (!hasRegisteredListeners) {
+        if (HAS_REGISTERED_LISTENERS.compareAndSet(false, true)) {
             Bukkit.getPluginManager().registerEvents(new GuiListener(plugin), plugin);
-
-            hasRegisteredListeners = true;
         }
     }
 
     /**
-     * Gets a gui from the specified inventory. Only guis of type beacon, brewing stand, dispenser, dropper, furnace and
-     * hopper can be retrieved.
+     * Gets a gui from the specified inventory. The inventory is looked up by identity first. Otherwise, its holder is
+     * checked without taking a snapshot of any block state, so inventories that don't belong to a gui are rejected
+     * cheaply.
      *
      * @param inventory the inventory to get the gui from
      * @return the gui or null if the inventory doesn't have an accompanying gui
      * @since 3.0.0
      */
-    @Contract(pure = true)
     public static @Nullable Gui getGui(final @NonNull Inventory inventory) {
-        return GUI_INVENTORIES.get(inventory);
+        final Gui gui = GUI_INVENTORIES.get(inventory);
+
+        if (gui != null) {
+            return gui;
+        }
+
+        if (inventory.getHolder(false) instanceof Gui holder) {
+            GUI_INVENTORIES.put(inventory, holder);
+            return holder;
+        }
+
+        return null;
     }
 
     /**
@@ -131,6 +167,63 @@ public abstract class Gui {
      */
     public abstract void show(final @NonNull HumanEntity humanEntity);
 
+    /**
+     * Renders this gui again and writes the result into the inventory its viewers already have open, without reopening
+     * it. Only the slots that changed since the previous render are written, see {@link RenderCache}. This returns
+     * false when the gui cannot be updated this way, for example because its inventory has to be recreated, in which
+     * case nothing has been changed. By default, this always returns false.
+     *
+     * @return true if the gui was updated in place, false otherwise
+     * @since 3.4.0
+     */
+    protected boolean updateInPlace() {
+        return false;
+    }
+
+    /**
+     * Places the items of the specified component into the inventory of the specified human entity, if the component
+     * has any items. The original contents of the inventory are stored in the {@link HumanEntityCache} the first time
+     * this happens, so they can be restored once the gui is closed.
+     *
+     * @param humanEntity        the human entity whose inventory to place the items in
+     * @param inventoryComponent the component representing the player inventory
+     * @since 3.4.0
+     */
+    protected void placePlayerInventoryItems(final @NonNull HumanEntity humanEntity,
+                                             final @NonNull InventoryComponent inventoryComponent) {
+        placePlayerInventoryItems(humanEntity, inventoryComponent, 0, inventoryComponent.getHeight() - 1);
+    }
+
+    /**
+     * Places the items in the specified rows of the specified component into the inventory of the specified human
+     * entity, as in {@link #placePlayerInventoryItems(HumanEntity, InventoryComponent)}. The rows are read from the
+     * component directly, so guis that combine the top inventory and the player inventory in one component don't have
+     * to split it.
+     *
+     * @param humanEntity        the human entity whose inventory to place the items in
+     * @param inventoryComponent the component containing the player inventory rows
+     * @param from               the first row representing the player inventory, inclusive
+     * @param end                the last row representing the player inventory, inclusive
+     * @since 3.4.0
+     */
+    protected void placePlayerInventoryItems(final @NonNull HumanEntity humanEntity,
+                                             final @NonNull InventoryComponent inventoryComponent,
+                                             final int from, final int end) {
+        if (from > end || !inventoryComponent.hasItemInRows(from, end)) {
+            return;
+        }
+
+        final RenderCache viewerRenderCache = viewerRenderCaches.computeIfAbsent(humanEntity, key -> new RenderCache());
+
+        if (!humanEntityCache.contains(humanEntity)) {
+            humanEntityCache.storeAndClear(humanEntity);
+
+            viewerRenderCache.invalidate();
+        }
+
+        inventoryComponent.placeRows(humanEntity.getInventory(), from, end, 0, viewerRenderCache);
+    }
+
     /**
      * Makes a copy of this gui and returns it. This makes a deep copy of the gui. This entails that the underlying
      * panes will be copied as per their {@link Pane#copy()} and miscellaneous data will be copied. The copy of this gui,
@@ -183,20 +276,23 @@ public abstract class Gui {
     public abstract @NonNull List<HumanEntity> getViewers();
 
     /**
-     * Update the gui for everyone
+     * Update the gui for everyone. If possible, the gui is updated in place as per {@link #updateInPlace()}, which only
+     * sends the slots that changed. Otherwise, the gui is shown to every viewer again.
      *
      * @since 3.0.0
      */
     public void update() {
         updating = true;
 
-        for (final HumanEntity viewer : getViewers()) {
-            final ItemStack cursor = viewer.getItemOnCursor();
-            viewer.setItemOnCursor(null); // TODO set to air if this fails
+        if (!updateInPlace()) {
+            for (final HumanEntity viewer : getViewers()) {
+                final ItemStack cursor = viewer.getItemOnCursor();
+                viewer.setItemOnCursor(null); // TODO set to air if this fails
 
-            show(viewer);
+                show(viewer);
 
-            viewer.setItemOnCursor(cursor);
+                viewer.setItemOnCursor(cursor);
+            }
         }
 
         if (!updating) {
@@ -448,10 +544,23 @@ public abstract class Gui {
         this.parent.show(humanEntity);
     }
 
+    /**
+     * Gets the parent gui, which a player will be navigated to once they close this gui.
+     *
+     * @return the parent gui, or null if this gui doesn't have a parent
+     * @see #setParent(Gui)
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public @Nullable Gui getParent() {
+        return parent;
+    }
+
     /**
      * Sets the parent gui to the provided gui. This is the gui that a player will be navigated to once they close this
-     * gui. The navigation will occur after the close event handler, set by {@link #setOnClose(Consumer)}, is called. If
-     * there was already a previous parent set, the provided gui will override the previous one.
+     * gui. The navigation will occur after the close event handler, set by {@link #setOnClose(Consumer)}, is called. A
+     * player isn't navigated to the parent if this gui was closed because they opened another inventory. If there was
+     * already a previous parent set, the provided gui will override the previous one.
      *
      * @param gui the new parent gui
      * @since 3.0.0
@@ -472,4 +581,164 @@ public abstract class Gui {
         return updating;
     }
 
+    /**
+     * Gets the render cache of this gui. The render cache remembers which items were placed into the inventory of this
+     * gui, so updates only write the slots that changed. If the inventory of this gui is modified directly, the render
+     * cache should be invalidated afterwards.
+     *
+     * @return the render cache
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public @NonNull RenderCache getRenderCache() {
+        return renderCache;
+    }
+
+    /**
+     * Forgets which items were placed into the inventory of this gui and into the player inventories of its viewers,
+     * so they are all written again on the next render. This should be called whenever any of these inventories may
+     * have been changed by something other than this gui.
+     *
+     * @since 3.4.0
+     */
+    public void invalidateRenderCaches() {
+        renderCache.invalidate();
+
+        for (final RenderCache viewerRenderCache : viewerRenderCaches.values()) {
+            viewerRenderCache.invalidate();
+        }
+    }
+
+    /**
+     * Forgets which items were placed into the inventory of this gui and into the player inventory of the specified
+     * viewer, so they are written again on the next render. Unlike {@link #invalidateRenderCaches()}, the player
+     * inventories of other viewers are still only written where they changed. This should be called when only the
+     * specified viewer may have changed these inventories, e.g. by clicking.
+     *
+     * @param humanEntity the viewer whose player inventory may have changed
+     * @since 3.4.0
+     */
+    public void invalidateRenderCaches(final @NonNull HumanEntity humanEntity) {
+        renderCache.invalidate();
+
+        final RenderCache viewerRenderCache = viewerRenderCaches.get(humanEntity);
+
+        if (viewerRenderCache != null) {
+            viewerRenderCache.invalidate();
+        }
+    }
+
+    /**
+     * Sets whether the inventory of this gui should be rendered at the packet level. When enabled, items are converted
+     * once and shared between all viewers, and changed slots are written into the underlying container and sent to
+     * the viewers directly, instead of going through the Bukkit inventory. This is meant for read-only menus with many
+     * viewers or frequent updates. This is disabled by default.
+     * <p>
+     * Packet rendering is only supported by guis backed by a plain storage inventory: chests, barrels, ender chests,
+     * shulker boxes, hoppers, dispensers and droppers. Other guis ignore this setting.
+     *
+     * @param packetRendering whether to render at the packet level
+     * @since 3.4.0
+     */
+    public void setPacketRendering(final boolean packetRendering) {
+        if (packetRendering == isPacketRendering()) {
+            return;
+        }
+
+        this.packetRenderer = packetRendering ? new PacketRenderer() : null;
+
+        //the inventory may have been written without the render cache knowing
+        renderCache.invalidate();
+    }
+
+    /**
+     * Gets whether the inventory of this gui is rendered at the packet level.
+     *
+     * @return true if packet rendering is enabled, false otherwise
+     * @see #setPacketRendering(boolean)
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public boolean isPacketRendering() {
+        return packetRenderer != null;
+    }
+
+    /**
+     * Places the items of the specified component into the specified inventory, starting at the first slot. This uses
+     * packet rendering if it's enabled, and the render cache otherwise.
+     *
+     * @param inventoryComponent the component to place
+     * @param inventory          the inventory of this gui
+     * @since 3.4.0
+     */
+    protected void placeTopItems(final @NonNull InventoryComponent inventoryComponent, final @NonNull Inventory inventory) {
+        placeTopItems(inventoryComponent, 0, inventoryComponent.getHeight() - 1, inventory);
+    }
+
+    /**
+     * Places the items in the specified rows of the specified component into the specified inventory, starting at the
+     * first slot, as in {@link #placeTopItems(InventoryComponent, Inventory)}.
+     *
+     * @param inventoryComponent the component containing the rows to place
+     * @param from               the first row to place, inclusive
+     * @param end                the last row to place, inclusive
+     * @param inventory          the inventory of this gui
+     * @since 3.4.0
+     */
+    protected void placeTopItems(final @NonNull InventoryComponent inventoryComponent, final int from, final int end,
+                                 final @NonNull Inventory inventory) {
+        if (packetRenderer == null) {
+            inventoryComponent.placeRows(inventory, from, end, 0, renderCache);
+            return;
+        }
+
+        packetRenderer.render(inventoryComponent, from, end, inventory, getViewers());
+    }
+
+    /**
+     * Sets whether clicked items should be validated against their internal data. Clicked items are found by their
+     * slot; when this is enabled, the item in the clicked slot must also carry the internal data of the found item,
+     * otherwise the click is not passed to it. This costs an item meta read per click.
+     *
+     * @param validateClickedItems whether to validate clicked items
+     * @since 3.4.0
+     */
+    public void setValidateClickedItems(final boolean validateClickedItems) {
+        this.validateClickedItems = validateClickedItems;
+    }
+
+    /**
+     * Gets whether clicked items are validated against their internal data.
+     *
+     * @return whether clicked items are validated
+     * @see #setValidateClickedItems(boolean)
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public boolean isValidatingClickedItems() {
+        return validateClickedItems;
+    }
+
+    /**
+     * Sets the limit on how fast players may click in this gui. Clicks beyond the limit are cancelled and not handled.
+     *
+     * @param clickLimit the click limit, or null to use {@link ClickLimit#getDefault()}
+     * @since 3.4.0
+     */
+    public void setClickLimit(final @Nullable ClickLimit clickLimit) {
+        this.clickLimit = clickLimit;
+    }
+
+    /**
+     * Gets the limit on how fast players may click in this gui.
+     *
+     * @return the click limit of this gui, or the default limit if this gui doesn't have its own
+     * @see #setClickLimit(ClickLimit)
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public @NonNull ClickLimit getClickLimit() {
+        return clickLimit == null ? ClickLimit.getDefault() : clickLimit;
+    }
+
 }
@@ -1,11 +1,17 @@
 package dev.kokiriglade.popcorn.inventory.gui.type.util;
 
+import dev.kokiriglade.popcorn.inventory.GuiScheduler;
+import dev.kokiriglade.popcorn.inventory.gui.type.impl.util.CustomInventoryUtil;
 import net.kyori.adventure.text.Component;
+import org.bukkit.entity.HumanEntity;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.jetbrains.annotations.Contract;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * A Gui with a name
  *
@@ -23,6 +29,16 @@ public abstract class NamedGui extends Gui {
      */
     private boolean dirty = false;
 
+    /**
+     * Whether the title was changed in place, so the inventory itself still carries a previous title
+     */
+    private boolean titleUpdated = false;
+
+    /**
+     * The viewers that have a title update scheduled
+     */
+    private final @NonNull Set<@NonNull HumanEntity> pendingTitleViewers = ConcurrentHashMap.newKeySet();
+
     /**
      * Constructs a new gui with a title
      *
@@ -69,6 +85,68 @@ public abstract class NamedGui extends Gui {
         this.dirty = true;
     }
 
+    /**
+     * Changes the title of this gui for its current viewers without recreating the inventory. Instead of reopening the
+     * inventory, the title is sent to each viewer in a single packet, followed by the contents of the inventory. Title
+     * changes are coalesced per tick: each viewer is sent the latest title at most once per tick, no matter how often
+     * this is called. Viewers that open this gui later are sent the new title as well.
+     * <p>
+     * If this gui has no viewers, this behaves like {@link #setTitle(Component)}.
+     *
+     * @param title the new title
+     * @since 3.4.0
+     */
+    public void updateTitle(final @NonNull Component title) {
+        this.title = title;
+
+        if (dirty || getViewers().isEmpty()) {
+            this.dirty = true;
+            return;
+        }
+
+        this.titleUpdated = true;
+
+        for (final HumanEntity viewer : getViewers()) {
+            scheduleTitle(viewer);
+        }
+    }
+
+    /**
+     * Makes sure the specified viewer sees the current title, after this gui was opened for them. This is only
+     * necessary if the title was changed in place, since the inventory was created with the previous title; otherwise
+     * this does nothing.
+     *
+     * @param humanEntity the viewer
+     * @see #updateTitle(Component)
+     * @since 3.4.0
+     */
+    public void refreshTitle(final @NonNull HumanEntity humanEntity) {
+        if (titleUpdated) {
+            scheduleTitle(humanEntity);
+        }
+    }
+
+    /**
+     * Sends the current title to the specified viewer on the next tick, unless a title update is already scheduled
+     * for them. If the viewer leaves before then, the update is dropped.
+     *
+     * @param humanEntity the viewer
+     * @since 3.4.0
+     */
+    private void scheduleTitle(final @NonNull HumanEntity humanEntity) {
+        if (!pendingTitleViewers.add(humanEntity)) {
+            return;
+        }
+
+        GuiScheduler.runForEntity(super.plugin, humanEntity, () -> {
+            pendingTitleViewers.remove(humanEntity);
+
+            if (getViewers().contains(humanEntity)) {
+                CustomInventoryUtil.sendTitle(humanEntity, this.title);
+            }
+        }, () -> pendingTitleViewers.remove(humanEntity));
+    }
+
     /**
      * Gets whether this title is dirty or not i.e. whether the title has changed.
      *
@@ -88,6 +166,7 @@ public abstract class NamedGui extends Gui {
      */
     public void markChanges() {
         this.dirty = false;
+        this.titleUpdated = false;
     }
 
 }
@@ -0,0 +1,366 @@
+package dev.kokiriglade.popcorn.inventory.pane;
+
+import dev.kokiriglade.popcorn.inventory.GuiScheduler;
+import dev.kokiriglade.popcorn.inventory.gui.GuiItem;
+import dev.kokiriglade.popcorn.inventory.gui.type.util.Gui;
+import dev.kokiriglade.popcorn.inventory.pane.util.Slot;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.jetbrains.annotations.Contract;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+
+/**
+ * A lazy paginated pane whose pages are loaded asynchronously. The data source returns a {@link CompletableFuture} for
+ * the items of a page. While a page is loading, its placeholders are displayed instead. Once the page has loaded, the
+ * items are patched in on the main thread and {@link #setOnPageLoad(Runnable)} is called, which would typically update
+ * the gui this pane is in. After a page has been displayed, the pages next to it are loaded in the background, so they
+ * can be shown immediately. Results for pages the viewer has already moved away from are dropped.
+ * <p>
+ * On region-threaded servers, a viewer's open inventory may only be changed on the thread that owns the viewer. If the
+ * gui this pane is in is set with {@link #setGui(Gui)}, loaded pages are patched in on the thread of a viewer of that
+ * gui. Otherwise, they are patched in on the global region thread, and {@link #setOnPageLoad(Runnable)} is responsible
+ * for moving to the viewers' threads, e.g. with {@link GuiScheduler#runForEntity(Plugin, Entity, Runnable)}.
+ * <p>
+ * If loading a page fails, the error is logged and the placeholders remain; {@link #invalidate(int)} can be used to try
+ * again.
+ *
+ * @since 3.4.0
+ */
+@SuppressWarnings({"unused"})
+public class AsyncPaginatedPane extends LazyPaginatedPane {
+
+    /**
+     * The executor used to load pages with a blocking loader, if no executor was specified
+     */
+    private static final @NonNull ExecutorService DEFAULT_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Starts loading the items of a page, given the index of the page
+     */
+    private final @NonNull IntFunction<? extends @NonNull CompletableFuture<? extends @NonNull List<@NonNull GuiItem>>> pageSource;
+
+    /**
+     * The plugin used to schedule the loaded pages onto the main thread
+     */
+    private final @NonNull Plugin plugin;
+
+    /**
+     * The pages that are currently loading
+     */
+    private final @NonNull Map<Integer, CompletableFuture<? extends List<GuiItem>>> loading = new HashMap<>();
+
+    /**
+     * The pages that have loaded, but haven't been displayed yet
+     */
+    private final @NonNull Map<Integer, List<GuiItem>> loaded = new HashMap<>();
+
+    /**
+     * The items displayed on a page while it's loading
+     */
+    private @NonNull List<@NonNull GuiItem> placeholders = Collections.emptyList();
+
+    /**
+     * Called once the current page has loaded, or null if nothing should be called
+     */
+    private @Nullable Runnable onPageLoad;
+
+    /**
+     * The gui this pane is in, used to patch in loaded pages on a viewer's thread, or null if it isn't known
+     */
+    private volatile @Nullable Gui gui;
+
+    /**
+     * Creates a new asynchronous paginated pane
+     *
+     * @param slot       the slot of the pane
+     * @param length     the length of the pane
+     * @param height     the height of the pane
+     * @param priority   the priority of the pane
+     * @param pageCount  supplies the amount of pages
+     * @param pageSource starts loading the items of the page with the provided index
+     * @param plugin     the plugin used to schedule loaded pages onto the main thread
+     * @since 3.4.0
+     */
+    public AsyncPaginatedPane(final @NonNull Slot slot, final int length, final int height, final @NonNull Priority priority,
+                              final @NonNull IntSupplier pageCount,
+                              final @NonNull IntFunction<? extends @NonNull CompletableFuture<? extends @NonNull List<@NonNull GuiItem>>> pageSource,
+                              final @NonNull Plugin plugin) {
+        //pages are provided by loadPage instead
+        super(slot, length, height, priority, pageCount, page -> Collections.emptyList());
+
+        this.pageSource = pageSource;
+        this.plugin = plugin;
+    }
+
+    /**
+     * Creates a new asynchronous paginated pane
+     *
+     * @param length     the length of the pane
+     * @param height     the height of the pane
+     * @param pageCount  supplies the amount of pages
+     * @param pageSource starts loading the items of the page with the provided index
+     * @since 3.4.0
+     */
+    public AsyncPaginatedPane(final int length, final int height, final @NonNull IntSupplier pageCount,
+                              final @NonNull IntFunction<? extends @NonNull CompletableFuture<? extends @NonNull List<@NonNull GuiItem>>> pageSource) {
+        this(Slot.fromXY(0, 0), length, height, Priority.NORMAL, pageCount, pageSource,
+            JavaPlugin.getProvidingPlugin(AsyncPaginatedPane.class));
+    }
+
+    /**
+     * Creates a new asynchronous paginated pane which loads its pages with the provided blocking loader on the provided
+     * executor.
+     *
+     * @param length     the length of the pane
+     * @param height     the height of the pane
+     * @param pageCount  supplies the amount of pages
+     * @param pageLoader loads the items of the page with the provided index, may block
+     * @param executor   the executor to run the loader on
+     * @return the created pane
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public static @NonNull AsyncPaginatedPane ofBlocking(final int length, final int height, final @NonNull IntSupplier pageCount,
+                                                         final @NonNull IntFunction<? extends @NonNull List<@NonNull GuiItem>> pageLoader,
+                                                         final @NonNull Executor executor) {
+        return new AsyncPaginatedPane(length, height, pageCount,
+            page -> CompletableFuture.supplyAsync(() -> pageLoader.apply(page), executor));
+    }
+
+    /**
+     * Creates a new asynchronous paginated pane which loads its pages with the provided blocking loader, each on its own
+     * virtual thread.
+     *
+     * @param length     the length of the pane
+     * @param height     the height of the pane
+     * @param pageCount  supplies the amount of pages
+     * @param pageLoader loads the items of the page with the provided index, may block
+     * @return the created pane
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public static @NonNull AsyncPaginatedPane ofBlocking(final int length, final int height, final @NonNull IntSupplier pageCount,
+                                                         final @NonNull IntFunction<? extends @NonNull List<@NonNull GuiItem>> pageLoader) {
+        return ofBlocking(length, height, pageCount, pageLoader, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Sets the items that are displayed on a page while it's loading. By default, a loading page is empty.
+     *
+     * @param placeholders the placeholder items
+     * @since 3.4.0
+     */
+    public void setPlaceholders(final @NonNull List<@NonNull GuiItem> placeholders) {
+        this.placeholders = new ArrayList<>(placeholders);
+    }
+
+    /**
+     * Gets the items that are displayed on a page while it's loading.
+     *
+     * @return the placeholder items
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public @NonNull List<@NonNull GuiItem> getPlaceholders() {
+        return Collections.unmodifiableList(placeholders);
+    }
+
+    /**
+     * Sets what should happen once the current page has loaded. This is called after the loaded items have been patched
+     * into this pane, on the thread of a viewer of the gui set with {@link #setGui(Gui)}, or on the global region thread
+     * if no gui is set. Typically, this updates the gui this pane is in, e.g. {@code gui::update}.
+     *
+     * @param onPageLoad the action to run, or null to do nothing
+     * @since 3.4.0
+     */
+    public void setOnPageLoad(final @Nullable Runnable onPageLoad) {
+        this.onPageLoad = onPageLoad;
+    }
+
+    /**
+     * Sets the gui this pane is in. Loaded pages are then patched in on the thread that owns the first viewer of the
+     * gui, which is the main thread on servers that aren't region-threaded. If the gui has no viewers, or no gui is
+     * set, loaded pages are patched in on the global region thread.
+     *
+     * @param gui the gui this pane is in, or null if it isn't known
+     * @since 3.4.0
+     */
+    public void setGui(final @Nullable Gui gui) {
+        this.gui = gui;
+    }
+
+    /**
+     * Checks whether the specified page is currently loading.
+     *
+     * @param page the page
+     * @return true if the page is loading, false otherwise
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public boolean isLoading(final int page) {
+        return this.loading.containsKey(page);
+    }
+
+    @Override
+    public void setPage(final int page) {
+        super.setPage(page);
+
+        //loaded pages that are no longer near the viewer won't be displayed soon, so don't hold onto them
+        this.loaded.keySet().removeIf(loadedPage -> loadedPage < page - 1 || loadedPage > page + 1);
+    }
+
+    @Override
+    public void invalidate() {
+        //pages that are still loading may contain outdated data, so their results are ignored
+        this.loading.clear();
+        this.loaded.clear();
+
+        super.invalidate();
+    }
+
+    @Override
+    public void invalidate(final int page) {
+        this.loading.remove(page);
+        this.loaded.remove(page);
+
+        super.invalidate(page);
+    }
+
+    /**
+     * Gets the items of the specified page if it has loaded. Otherwise, the page starts loading if it isn't already and
+     * the placeholders are returned.
+     *
+     * @param page the page
+     * @return the items of the page, or the placeholders if the page is loading
+     * @since 3.4.0
+     */
+    @Override
+    protected @NonNull List<@NonNull GuiItem> loadPage(final int page) {
+        final List<GuiItem> items = this.loaded.remove(page);
+
+        if (items == null) {
+            startLoading(page);
+
+            return placeholders;
+        }
+
+        return items;
+    }
+
+    /**
+     * Starts loading the specified page in the background, so it can be shown immediately once the viewer flips to it.
+     * The page isn't created until it is displayed, so its placeholders aren't cached.
+     *
+     * @param page the page
+     * @since 3.4.0
+     */
+    @Override
+    protected void prefetchPage(final int page) {
+        startLoading(page);
+    }
+
+    /**
+     * Starts loading the specified page, unless it's already loading or has loaded.
+     *
+     * @param page the page to load
+     * @since 3.4.0
+     */
+    private void startLoading(final int page) {
+        if (this.loading.containsKey(page) || this.loaded.containsKey(page)) {
+            return;
+        }
+
+        final CompletableFuture<? extends List<GuiItem>> future = pageSource.apply(page);
+
+        this.loading.put(page, future);
+
+        future.whenComplete((items, throwable) -> {
+            if (!this.plugin.isEnabled()) {
+                return;
+            }
+
+            final Runnable completion = () -> completeLoading(page, future, items, throwable);
+            final Gui gui = this.gui;
+            final List<HumanEntity> viewers = gui == null ? Collections.emptyList() : gui.getViewers();
+
+            if (viewers.isEmpty()) {
+                GuiScheduler.runGlobally(this.plugin, completion);
+                return;
+            }
+
+            //if the viewer leaves before the task runs, there's no viewer thread to patch the page in on
+            GuiScheduler.runForEntity(this.plugin, viewers.getFirst(), completion,
+                () -> GuiScheduler.runGlobally(this.plugin, completion));
+        });
+    }
+
+    /**
+     * Handles a page that finished loading. This must be called on the thread that owns the viewers of this pane.
+     *
+     * @param page      the page that was loaded
+     * @param future    the future that loaded the page
+     * @param items     the loaded items, or null if loading failed
+     * @param throwable the reason loading failed, or null if it succeeded
+     * @since 3.4.0
+     */
+    private void completeLoading(final int page, final @NonNull CompletableFuture<? extends List<GuiItem>> future,
+                                 final @Nullable List<GuiItem> items, final @Nullable Throwable throwable) {
+        //the page was invalidated or is being loaded again, so this result is outdated
+        if (this.loading.get(page) != future) {
+            return;
+        }
+
+        this.loading.remove(page);
+
+        if (throwable != null || items == null) {
+            this.plugin.getLogger().log(Level.WARNING, "Unable to load page " + page, throwable);
+            return;
+        }
+
+        final int currentPage = getPage();
+
+        if (page == currentPage) {
+            this.loaded.put(page, items);
+
+            //discards the placeholder page, so the loaded items are displayed on the next render
+            super.invalidate(page);
+
+            if (onPageLoad != null) {
+                onPageLoad.run();
+            }
+        } else if (page == currentPage + 1 || page == currentPage - 1) {
+            this.loaded.put(page, items);
+        }
+    }
+
+    @Contract(pure = true)
+    @Override
+    public @NonNull AsyncPaginatedPane copy() {
+        final AsyncPaginatedPane asyncPaginatedPane = new AsyncPaginatedPane(getSlot(), length, height, getPriority(),
+            this::getPages, pageSource, plugin);
+
+        copyProperties(asyncPaginatedPane);
+
+        asyncPaginatedPane.placeholders = placeholders;
+        asyncPaginatedPane.onPageLoad = onPageLoad;
+
+        return asyncPaginatedPane;
+    }
+
+}
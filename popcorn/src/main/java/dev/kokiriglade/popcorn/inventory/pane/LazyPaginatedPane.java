@@ -0,0 +1,604 @@
+package dev.kokiriglade.popcorn.inventory.pane;
+
+import dev.kokiriglade.popcorn.inventory.gui.GuiItem;
+import dev.kokiriglade.popcorn.inventory.gui.InventoryComponent;
+import dev.kokiriglade.popcorn.inventory.gui.type.util.Gui;
+import dev.kokiriglade.popcorn.inventory.pane.util.Slot;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.jetbrains.annotations.Contract;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+/**
+ * A pane for items that should be spread out over multiple pages, which are only created once they are needed. Unlike
+ * {@link PaginatedPane}, which holds every page up front, this pane asks a data source for the items of a page once that
+ * page is displayed. Only a small amount of recently displayed pages is kept, the least recently displayed page is
+ * discarded once this amount is exceeded. After a page is displayed, the pages next to it are created as well if they
+ * fit in the cache, so flipping to them doesn't have to wait for the data source. Each page is laid out as an
+ * {@link OutlinePane} filling this pane.
+ * <p>
+ * When the underlying data changes, {@link #invalidate()} or {@link #invalidate(int)} should be called, so the affected
+ * pages are requested again.
+ *
+ * @since 3.4.0
+ */
+@SuppressWarnings({"unused"})
+public class LazyPaginatedPane extends Pane {
+
+    /**
+     * The default amount of pages that are kept
+     */
+    private static final int DEFAULT_CACHE_SIZE = 3;
+
+    /**
+     * Supplies the amount of pages
+     */
+    private final @NonNull IntSupplier pageCount;
+
+    /**
+     * Creates the items of a page, given the index of the page
+     */
+    private final @NonNull IntFunction<? extends @NonNull List<@NonNull GuiItem>> pageLoader;
+
+    /**
+     * Supplies the amount of items, if this pane was created for a list of items, or null otherwise
+     */
+    private final @Nullable IntSupplier itemCount;
+
+    /**
+     * Creates the item with the provided index, if this pane was created for a list of items, or null otherwise
+     */
+    private final @Nullable IntFunction<? extends @NonNull GuiItem> itemLoader;
+
+    /**
+     * The pages that have been created, from least to most recently displayed. Pages are moved to the end explicitly
+     * when they are displayed, so looking up a page doesn't change the order.
+     */
+    private final @NonNull LinkedHashMap<Integer, OutlinePane> pages = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Integer, OutlinePane> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * The maximum amount of pages that are kept
+     */
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+
+    /**
+     * Whether the pages next to the displayed page should be created in advance
+     */
+    private boolean prefetch = true;
+
+    /**
+     * The current page
+     */
+    private int page;
+
+    /**
+     * Creates a new lazy paginated pane
+     *
+     * @param slot       the slot of the pane
+     * @param length     the length of the pane
+     * @param height     the height of the pane
+     * @param priority   the priority of the pane
+     * @param pageCount  supplies the amount of pages
+     * @param pageLoader creates the items of the page with the provided index
+     * @since 3.4.0
+     */
+    public LazyPaginatedPane(final @NonNull Slot slot, final int length, final int height, final @NonNull Priority priority,
+                             final @NonNull IntSupplier pageCount,
+                             final @NonNull IntFunction<? extends @NonNull List<@NonNull GuiItem>> pageLoader) {
+        super(slot, length, height, priority);
+
+        this.pageCount = pageCount;
+        this.pageLoader = pageLoader;
+        this.itemCount = null;
+        this.itemLoader = null;
+    }
+
+    /**
+     * Creates a new lazy paginated pane for a list of items. The pages are derived from the items, based on the size of
+     * this pane at the time a page is requested.
+     *
+     * @param itemCount  supplies the amount of items
+     * @param itemLoader creates the item with the provided index
+     * @param slot       the slot of the pane
+     * @param length     the length of the pane
+     * @param height     the height of the pane
+     * @param priority   the priority of the pane
+     * @since 3.4.0
+     */
+    private LazyPaginatedPane(final @NonNull IntSupplier itemCount, final @NonNull IntFunction<? extends @NonNull GuiItem> itemLoader,
+                              final @NonNull Slot slot, final int length, final int height, final @NonNull Priority priority) {
+        super(slot, length, height, priority);
+
+        this.itemCount = itemCount;
+        this.itemLoader = itemLoader;
+        this.pageCount = () -> {
+            final int itemsPerPage = getItemsPerPage();
+
+            return itemsPerPage == 0 ? 0 : (itemCount.getAsInt() + itemsPerPage - 1) / itemsPerPage;
+        };
+        this.pageLoader = page -> {
+            final int itemsPerPage = getItemsPerPage();
+            final int start = page * itemsPerPage;
+            final int end = Math.min(start + itemsPerPage, itemCount.getAsInt());
+            final List<GuiItem> items = new ArrayList<>(Math.max(end - start, 0));
+
+            for (int index = start; index < end; index++) {
+                items.add(itemLoader.apply(index));
+            }
+
+            return items;
+        };
+    }
+
+    /**
+     * Creates a new lazy paginated pane
+     *
+     * @param slot       the slot of the pane
+     * @param length     the length of the pane
+     * @param height     the height of the pane
+     * @param pageCount  supplies the amount of pages
+     * @param pageLoader creates the items of the page with the provided index
+     * @since 3.4.0
+     */
+    public LazyPaginatedPane(final @NonNull Slot slot, final int length, final int height, final @NonNull IntSupplier pageCount,
+                             final @NonNull IntFunction<? extends @NonNull List<@NonNull GuiItem>> pageLoader) {
+        this(slot, length, height, Priority.NORMAL, pageCount, pageLoader);
+    }
+
+    /**
+     * Creates a new lazy paginated pane
+     *
+     * @param length     the length of the pane
+     * @param height     the height of the pane
+     * @param pageCount  supplies the amount of pages
+     * @param pageLoader creates the items of the page with the provided index
+     * @since 3.4.0
+     */
+    public LazyPaginatedPane(final int length, final int height, final @NonNull IntSupplier pageCount,
+                             final @NonNull IntFunction<? extends @NonNull List<@NonNull GuiItem>> pageLoader) {
+        this(Slot.fromXY(0, 0), length, height, pageCount, pageLoader);
+    }
+
+    /**
+     * Creates a new lazy paginated pane for a list of items, which only creates the items on the displayed pages. The
+     * amount of pages follows from the amount of items and the size of this pane.
+     *
+     * @param slot       the slot of the pane
+     * @param length     the length of the pane
+     * @param height     the height of the pane
+     * @param priority   the priority of the pane
+     * @param itemCount  supplies the amount of items
+     * @param itemLoader creates the item with the provided index
+     * @return the created pane
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public static @NonNull LazyPaginatedPane ofItems(final @NonNull Slot slot, final int length, final int height,
+                                                     final @NonNull Priority priority, final @NonNull IntSupplier itemCount,
+                                                     final @NonNull IntFunction<? extends @NonNull GuiItem> itemLoader) {
+        return new LazyPaginatedPane(itemCount, itemLoader, slot, length, height, priority);
+    }
+
+    /**
+     * Creates a new lazy paginated pane for a list of items, which only creates the items on the displayed pages. The
+     * amount of pages follows from the amount of items and the size of this pane.
+     *
+     * @param length     the length of the pane
+     * @param height     the height of the pane
+     * @param itemCount  supplies the amount of items
+     * @param itemLoader creates the item with the provided index
+     * @return the created pane
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public static @NonNull LazyPaginatedPane ofItems(final int length, final int height, final @NonNull IntSupplier itemCount,
+                                                     final @NonNull IntFunction<? extends @NonNull GuiItem> itemLoader) {
+        return ofItems(Slot.fromXY(0, 0), length, height, Priority.NORMAL, itemCount, itemLoader);
+    }
+
+    /**
+     * Returns the current page
+     *
+     * @return the current page
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * Sets the current displayed page. The page is created once it is displayed.
+     *
+     * @param page the page
+     * @throws ArrayIndexOutOfBoundsException if the page doesn't exist
+     * @since 3.4.0
+     */
+    public void setPage(final int page) {
+        if (page < 0 || page >= getPages()) {
+            throw new ArrayIndexOutOfBoundsException("page outside range");
+        }
+
+        this.page = page;
+
+        markModified();
+    }
+
+    /**
+     * Returns the amount of pages, as reported by the data source
+     *
+     * @return the amount of pages
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public int getPages() {
+        return pageCount.getAsInt();
+    }
+
+    /**
+     * Gets the maximum amount of pages that are kept after they have been displayed.
+     *
+     * @return the cache size
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Sets the maximum amount of pages that are kept after they have been displayed. When more pages have been created,
+     * the least recently displayed pages are discarded. The cache size must be at least one, otherwise an
+     * {@link IllegalArgumentException} will be thrown.
+     *
+     * @param cacheSize the cache size
+     * @throws IllegalArgumentException if the cache size is less than one
+     * @since 3.4.0
+     */
+    public void setCacheSize(final int cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least one");
+        }
+
+        this.cacheSize = cacheSize;
+
+        while (this.pages.size() > cacheSize) {
+            this.pages.remove(this.pages.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Sets whether the pages next to the displayed page should be created in advance, as far as they fit in the cache.
+     * This is enabled by default. The neighbouring pages are created while the current page is displayed, so the data
+     * source may be asked for up to three pages during a single render, e.g. when this pane is first shown. If the data
+     * source is slow, prefetching should be disabled or an {@link AsyncPaginatedPane} should be used instead.
+     *
+     * @param prefetch whether to create the neighbouring pages in advance
+     * @since 3.4.0
+     */
+    public void setPrefetch(final boolean prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Checks whether the pages next to the displayed page are created in advance.
+     *
+     * @return true if neighbouring pages are created in advance, false otherwise
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public boolean isPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * Discards all created pages, so they will be requested from the data source again once they are displayed.
+     *
+     * @since 3.4.0
+     */
+    public void invalidate() {
+        this.pages.clear();
+
+        markModified();
+    }
+
+    /**
+     * Discards the specified page if it was created, so it will be requested from the data source again once it is
+     * displayed.
+     *
+     * @param page the page to discard
+     * @since 3.4.0
+     */
+    public void invalidate(final int page) {
+        if (this.pages.remove(page) != null) {
+            markModified();
+        }
+    }
+
+    /**
+     * Gets the pane of the specified page, creating it if it doesn't exist yet. The page becomes the most recently used
+     * page.
+     *
+     * @param page the page
+     * @return the pane of the page
+     * @since 3.4.0
+     */
+    protected @NonNull OutlinePane getPagePane(final int page) {
+        final OutlinePane existing = this.pages.remove(page);
+
+        if (existing != null) {
+            this.pages.put(page, existing);
+
+            return existing;
+        }
+
+        final OutlinePane pane = new OutlinePane(0, 0, length, height);
+
+        for (final GuiItem item : loadPage(page)) {
+            pane.addItem(item);
+        }
+
+        this.pages.put(page, pane);
+
+        return pane;
+    }
+
+    /**
+     * Creates the specified page in advance, because it is next to the displayed page. This is only called for pages
+     * that exist and haven't been created yet.
+     *
+     * @param page the page
+     * @since 3.4.0
+     */
+    protected void prefetchPage(final int page) {
+        getPagePane(page);
+    }
+
+    /**
+     * Creates the pages next to the current page in advance, as far as they fit in the cache next to the current page.
+     * The current page stays the most recently used page, so creating its neighbours never discards it.
+     *
+     * @since 3.4.0
+     */
+    private void prefetchNeighbours() {
+        final int pages = getPages();
+        boolean prefetched = false;
+
+        if (cacheSize >= 2 && page + 1 < pages && !this.pages.containsKey(page + 1)) {
+            prefetchPage(page + 1);
+            prefetched = true;
+        }
+
+        if (cacheSize >= 3 && page > 0 && !this.pages.containsKey(page - 1)) {
+            prefetchPage(page - 1);
+            prefetched = true;
+        }
+
+        final OutlinePane current = prefetched ? this.pages.remove(page) : null;
+
+        if (current != null) {
+            this.pages.put(page, current);
+        }
+    }
+
+    /**
+     * Gets the items of the specified page from the data source. This is called when a page is displayed that hasn't
+     * been created yet.
+     *
+     * @param page the page
+     * @return the items of the page
+     * @since 3.4.0
+     */
+    protected @NonNull List<@NonNull GuiItem> loadPage(final int page) {
+        return pageLoader.apply(page);
+    }
+
+    /**
+     * Gets the pane of the current page, or null if the current page doesn't exist.
+     *
+     * @return the pane of the current page or null
+     * @since 3.4.0
+     */
+    private @Nullable OutlinePane getCurrentPagePane() {
+        if (page < 0 || page >= getPages()) {
+            return null;
+        }
+
+        return getPagePane(page);
+    }
+
+    /**
+     * Gets the amount of items that fit on a single page
+     *
+     * @return the amount of items per page
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    private int getItemsPerPage() {
+        return Math.max(length, 0) * Math.max(height, 0);
+    }
+
+    @Override
+    public void display(final @NonNull InventoryComponent inventoryComponent, final int paneOffsetX, final int paneOffsetY, final int maxLength,
+                        final int maxHeight) {
+        final OutlinePane pane = getCurrentPagePane();
+
+        if (pane == null || !pane.isVisible()) {
+            return;
+        }
+
+        final Slot slot = getSlot();
+
+        final int newPaneOffsetX = paneOffsetX + slot.getX(maxLength);
+        final int newPaneOffsetY = paneOffsetY + slot.getY(maxLength);
+        final int newMaxLength = Math.min(length, maxLength);
+        final int newMaxHeight = Math.min(height, maxHeight);
+
+        pane.display(inventoryComponent, newPaneOffsetX, newPaneOffsetY, newMaxLength, newMaxHeight);
+
+        if (prefetch) {
+            prefetchNeighbours();
+        }
+    }
+
+    @Override
+    public boolean click(final @NonNull Gui gui, final @NonNull InventoryComponent inventoryComponent,
+                         final @NonNull InventoryClickEvent event, final int slot, final int paneOffsetX, final int paneOffsetY, final int maxLength,
+                         final int maxHeight) {
+        final int length = Math.min(this.length, maxLength);
+        final int height = Math.min(this.height, maxHeight);
+
+        final Slot paneSlot = getSlot();
+
+        final int xPosition = paneSlot.getX(maxLength);
+        final int yPosition = paneSlot.getY(maxLength);
+
+        final int totalLength = inventoryComponent.getLength();
+
+        final int adjustedSlot = slot - (xPosition + paneOffsetX) - totalLength * (yPosition + paneOffsetY);
+
+        final int x = adjustedSlot % totalLength;
+        final int y = adjustedSlot / totalLength;
+
+        //this isn't our item
+        if (x < 0 || x >= length || y < 0 || y >= height) {
+            return false;
+        }
+
+        callOnClick(event);
+
+        //only a page that was displayed can have been clicked
+        final OutlinePane pane = this.pages.get(page);
+
+        if (pane == null || !pane.isVisible()) {
+            return false;
+        }
+
+        return pane.click(gui, inventoryComponent, event, slot, paneOffsetX + xPosition, paneOffsetY + yPosition,
+            length, height);
+    }
+
+    @Contract(pure = true)
+    @Override
+    public boolean isClickable(final int slot, final int maxLength, final int maxHeight) {
+        return containsSlot(slot, maxLength, 0, 0, maxLength, maxHeight);
+    }
+
+    @Override
+    public boolean isModifiedSince(final long time) {
+        if (getLastModified() > time) {
+            return true;
+        }
+
+        //a page that isn't created yet has to be rendered regardless
+        final OutlinePane pane = this.pages.get(page);
+
+        return pane == null || pane.isModifiedSince(time);
+    }
+
+    @Contract(pure = true)
+    @Override
+    public @NonNull LazyPaginatedPane copy() {
+        final LazyPaginatedPane lazyPaginatedPane;
+
+        if (itemCount != null && itemLoader != null) {
+            lazyPaginatedPane = new LazyPaginatedPane(itemCount, itemLoader, getSlot(), length, height, getPriority());
+        } else {
+            lazyPaginatedPane = new LazyPaginatedPane(getSlot(), length, height, getPriority(), pageCount, pageLoader);
+        }
+
+        copyProperties(lazyPaginatedPane);
+
+        return lazyPaginatedPane;
+    }
+
+    /**
+     * Copies the properties of this pane, such as its visibility, current page, cache size and prefetching, to the
+     * specified pane.
+     * The created pages are not copied. This is used when copying this pane.
+     *
+     * @param lazyPaginatedPane the pane to copy the properties to
+     * @since 3.4.0
+     */
+    protected void copyProperties(final @NonNull LazyPaginatedPane lazyPaginatedPane) {
+        lazyPaginatedPane.setVisible(isVisible());
+        lazyPaginatedPane.onClick = onClick;
+
+        lazyPaginatedPane.uuid = uuid;
+
+        lazyPaginatedPane.page = page;
+        lazyPaginatedPane.cacheSize = cacheSize;
+        lazyPaginatedPane.prefetch = prefetch;
+    }
+
+    @Override
+    public void setLength(final int length) {
+        super.setLength(length);
+
+        this.pages.clear();
+    }
+
+    @Override
+    public void setHeight(final int height) {
+        super.setHeight(height);
+
+        this.pages.clear();
+    }
+
+    /**
+     * Gets the panes of the pages that are currently created. Pages that haven't been displayed yet, or that have been
+     * discarded, are not included.
+     *
+     * @return the panes of the created pages
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    @Override
+    public @NonNull Collection<Pane> getPanes() {
+        return new ArrayList<>(this.pages.values());
+    }
+
+    /**
+     * Gets the items on the pages that are currently created. Pages that haven't been displayed yet, or that have been
+     * discarded, are not included.
+     *
+     * @return the items on the created pages
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    @Override
+    public @NonNull Collection<GuiItem> getItems() {
+        final List<GuiItem> items = new ArrayList<>();
+
+        for (final OutlinePane pane : this.pages.values()) {
+            items.addAll(pane.getItems());
+        }
+
+        return items;
+    }
+
+    /**
+     * Discards all created pages. Since the pages are provided by the data source, this does not remove any items; it
+     * is equivalent to {@link #invalidate()}.
+     *
+     * @since 3.4.0
+     */
+    @Override
+    public void clear() {
+        invalidate();
+    }
+
+}
@@ -5,18 +5,22 @@ import dev.kokiriglade.popcorn.inventory.gui.InventoryComponent;
 import dev.kokiriglade.popcorn.inventory.gui.type.util.Gui;
 import dev.kokiriglade.popcorn.inventory.pane.util.Mask;
 import dev.kokiriglade.popcorn.inventory.pane.util.Slot;
-import dev.kokiriglade.popcorn.inventory.util.GeometryUtil;
+import dev.kokiriglade.popcorn.inventory.util.GeometryTransform;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.inventory.ItemStack;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.jetbrains.annotations.Contract;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  * A pane for items that should be outlined
@@ -29,7 +33,7 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
     /**
      * A set of items inside this pane
      */
-    private final @NonNull List<GuiItem> items;
+    private final @NonNull ItemList items;
 
     /**
      * The orientation of the items in this pane
@@ -66,6 +70,11 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
      */
     private @NonNull Mask mask;
 
+    /**
+     * The layout plan used during the previous render, or null if this pane hasn't been rendered yet
+     */
+    private @Nullable LayoutPlan layoutPlan;
+
     /**
      * Creates a new outline pane
      *
@@ -78,7 +87,7 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
     public OutlinePane(final @NonNull Slot slot, final int length, final int height, final @NonNull Priority priority) {
         super(slot, length, height, priority);
 
-        this.items = new ArrayList<>(length * height);
+        this.items = new ItemList(length * height, this::markModified);
         this.orientation = Orientation.HORIZONTAL;
 
         final String[] mask = new String[height];
@@ -145,122 +154,63 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
         final int length = Math.min(this.length, maxLength);
         final int height = Math.min(this.height, maxHeight);
 
+        final LayoutPlan plan = getLayoutPlan(length, height);
+        final List<GuiItem> items = getItems();
+
+        final int xPosition = getSlot().getX(maxLength) + paneOffsetX;
+        final int yPosition = getSlot().getY(maxLength) + paneOffsetY;
+
         int itemIndex = 0;
         int gapCount = 0;
 
-        final int size;
-
-        if (getOrientation() == Orientation.HORIZONTAL) {
-            size = height;
-        } else if (getOrientation() == Orientation.VERTICAL) {
-            size = length;
-        } else {
-            throw new IllegalStateException("Unknown orientation '" + getOrientation() + "'");
-        }
+        for (int line = 0; line < plan.lineCount() && items.size() > itemIndex; line++) {
+            final int lineStart = plan.lineStarts[line];
+            final int enabled = plan.lineStarts[line + 1] - lineStart;
 
-        for (int vectorIndex = 0; vectorIndex < size && getItems().size() > itemIndex; vectorIndex++) {
-            final boolean[] maskLine;
+            //the amount of positions in this line that are taken up by items and gaps
+            final int used;
 
-            if (getOrientation() == Orientation.HORIZONTAL) {
-                maskLine = mask.getRow(vectorIndex);
-            } else if (getOrientation() == Orientation.VERTICAL) {
-                maskLine = mask.getColumn(vectorIndex);
+            if (doesRepeat()) {
+                used = enabled;
             } else {
-                throw new IllegalStateException("Unknown orientation '" + getOrientation() + "'");
-            }
-
-            int enabled = 0;
+                final int remainingPositions = gapCount + (items.size() - itemIndex - 1) * (getGap() + 1) + 1;
 
-            for (final boolean bool : maskLine) {
-                if (bool) {
-                    enabled++;
-                }
+                used = Math.min(enabled, remainingPositions);
             }
 
-            final GuiItem[] items;
+            final int firstPosition;
 
-            if (doesRepeat()) {
-                items = new GuiItem[enabled];
+            if (getAlignment() == Alignment.BEGIN) {
+                firstPosition = 0;
+            } else if (getAlignment() == Alignment.CENTER) {
+                firstPosition = (enabled - used) / 2;
             } else {
-                final int remainingPositions = gapCount + (getItems().size() - itemIndex - 1) * (getGap() + 1) + 1;
-
-                items = new GuiItem[Math.min(enabled, remainingPositions)];
+                throw new IllegalStateException("Unknown alignment '" + getAlignment() + "'");
             }
 
-            for (int index = 0; index < items.length; index++) {
+            for (int position = firstPosition; position < firstPosition + used; position++) {
+                final GuiItem item;
+
                 if (gapCount == 0) {
-                    items[index] = getItems().get(itemIndex);
+                    item = items.get(itemIndex);
 
                     itemIndex++;
 
-                    if (doesRepeat() && itemIndex >= getItems().size()) {
+                    if (doesRepeat() && itemIndex >= items.size()) {
                         itemIndex = 0;
                     }
 
                     gapCount = getGap();
                 } else {
-                    items[index] = null;
-
                     gapCount--;
-                }
-            }
-
-            int index;
-
-            if (getAlignment() == Alignment.BEGIN) {
-                index = 0;
-            } else if (getAlignment() == Alignment.CENTER) {
-                index = -((enabled - items.length) / 2);
-            } else {
-                throw new IllegalStateException("Unknown alignment '" + getAlignment() + "'");
-            }
-
-            for (int opposingVectorIndex = 0; opposingVectorIndex < maskLine.length; opposingVectorIndex++) {
-                if (!maskLine[opposingVectorIndex]) {
                     continue;
                 }
 
-                if (index >= 0 && index < items.length && items[index] != null) {
-                    int x, y;
-
-                    if (getOrientation() == Orientation.HORIZONTAL) {
-                        x = opposingVectorIndex;
-                        y = vectorIndex;
-                    } else if (getOrientation() == Orientation.VERTICAL) {
-                        x = vectorIndex;
-                        y = opposingVectorIndex;
-                    } else {
-                        throw new IllegalStateException("Unknown orientation '" + getOrientation() + "'");
-                    }
+                final int cell = plan.cells[lineStart + position];
 
-                    if (flipHorizontally) {
-                        x = length - x - 1;
-                    }
-
-                    if (flipVertically) {
-                        y = height - y - 1;
-                    }
-
-                    final Map.Entry<Integer, Integer> coordinates = GeometryUtil.processClockwiseRotation(x, y,
-                        length, height, rotation);
-
-                    x = coordinates.getKey();
-                    y = coordinates.getValue();
-
-                    if (x >= 0 && x < length && y >= 0 && y < height) {
-                        final Slot slot = getSlot();
-
-                        final int finalRow = slot.getY(maxLength) + y + paneOffsetY;
-                        final int finalColumn = slot.getX(maxLength) + x + paneOffsetX;
-
-                        final GuiItem item = items[index];
-                        if (item.isVisible()) {
-                            inventoryComponent.setItem(item, finalColumn, finalRow);
-                        }
-                    }
+                if (cell >= 0 && item.isVisible()) {
+                    inventoryComponent.setItem(item, xPosition + cell % length, yPosition + cell / length, this);
                 }
-
-                index++;
             }
         }
     }
@@ -291,13 +241,7 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
 
         callOnClick(event);
 
-        final ItemStack itemStack = event.getCurrentItem();
-
-        if (itemStack == null) {
-            return false;
-        }
-
-        final GuiItem item = findMatchingItem(items, itemStack);
+        final GuiItem item = findClickedItem(gui, inventoryComponent, event, slot, items);
 
         if (item == null) {
             return false;
@@ -308,6 +252,27 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
         return true;
     }
 
+    @Contract(pure = true)
+    @Override
+    public boolean isClickable(final int slot, final int maxLength, final int maxHeight) {
+        return containsSlot(slot, maxLength, 0, 0, maxLength, maxHeight);
+    }
+
+    @Override
+    public boolean isModifiedSince(final long time) {
+        if (getLastModified() > time) {
+            return true;
+        }
+
+        for (final GuiItem item : items) {
+            if (item.isModifiedSince(time)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Contract(pure = true)
     @Override
     public @NonNull OutlinePane copy() {
@@ -365,6 +330,20 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
         items.remove(item);
     }
 
+    /**
+     * Shifts all items in this pane by the specified distance, wrapping items around from the end to the start and vice
+     * versa. A positive distance moves items towards the end, a negative distance towards the start. This can be used
+     * to make e.g. a border rotate.
+     *
+     * @param distance the amount of positions to move each item
+     * @since 3.4.0
+     */
+    public void shiftItems(final int distance) {
+        Collections.rotate(items, distance);
+
+        markModified();
+    }
+
     @Override
     public void clear() {
         items.clear();
@@ -384,6 +363,8 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
         }
 
         this.mask = mask;
+
+        markModified();
     }
 
     @Override
@@ -408,16 +389,22 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
      */
     public void align(final @NonNull Alignment alignment) {
         this.alignment = alignment;
+
+        markModified();
     }
 
     @Override
     public void flipHorizontally(final boolean flipHorizontally) {
         this.flipHorizontally = flipHorizontally;
+
+        markModified();
     }
 
     @Override
     public void flipVertically(final boolean flipVertically) {
         this.flipVertically = flipVertically;
+
+        markModified();
     }
 
     /**
@@ -428,6 +415,8 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
      */
     public void setRepeat(final boolean repeat) {
         this.repeat = repeat;
+
+        markModified();
     }
 
     @Contract(pure = true)
@@ -477,6 +466,8 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
      */
     public void setGap(final int gap) {
         this.gap = gap;
+
+        markModified();
     }
 
     @Override
@@ -510,6 +501,8 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
     @Override
     public void setOrientation(final @NonNull Orientation orientation) {
         this.orientation = orientation;
+
+        markModified();
     }
 
     @Contract(pure = true)
@@ -529,6 +522,8 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
         }
 
         this.rotation = rotation % 360;
+
+        markModified();
     }
 
     @Contract(pure = true)
@@ -543,6 +538,398 @@ public class OutlinePane extends Pane implements Flippable, Orientable, Rotatabl
         return flipVertically;
     }
 
+    /**
+     * Gets the layout plan for the current settings of this pane, compiling a new one if any of the settings the plan
+     * depends on changed since the previous render.
+     *
+     * @param length the length of this pane, limited to the space available
+     * @param height the height of this pane, limited to the space available
+     * @return the layout plan
+     * @since 3.4.0
+     */
+    private @NonNull LayoutPlan getLayoutPlan(final int length, final int height) {
+        final LayoutPlan plan = this.layoutPlan;
+
+        if (plan != null && plan.matches(length, height, orientation, rotation, flipHorizontally, flipVertically, mask)) {
+            return plan;
+        }
+
+        final LayoutPlan newPlan = new LayoutPlan(length, height, orientation, rotation, flipHorizontally,
+            flipVertically, mask);
+
+        this.layoutPlan = newPlan;
+        return newPlan;
+    }
+
+    /**
+     * The positions at which an outline pane places its items, compiled from the settings that determine them. The
+     * enabled slots of the mask are split into lines, rows or columns depending on the orientation, and for each
+     * enabled slot the cell it ends up in after flipping and rotating, as per {@link GeometryTransform}, is stored. Items are then distributed over these
+     * positions, which only depends on the items, gap, repeat and alignment, so a plan can be reused until one of its
+     * own settings changes.
+     *
+     * @since 3.4.0
+     */
+    private static final class LayoutPlan {
+
+        /**
+         * The length of the pane this plan was compiled for
+         */
+        private final int length;
+
+        /**
+         * The height of the pane this plan was compiled for
+         */
+        private final int height;
+
+        /**
+         * The orientation this plan was compiled for
+         */
+        private final @NonNull Orientation orientation;
+
+        /**
+         * The rotation this plan was compiled for
+         */
+        private final int rotation;
+
+        /**
+         * The flips this plan was compiled for
+         */
+        private final boolean flipHorizontally, flipVertically;
+
+        /**
+         * The mask this plan was compiled for
+         */
+        private final @NonNull Mask mask;
+
+        /**
+         * For each line, the index in {@link #cells} at which its positions start; the positions of line {@code i} end
+         * where those of line {@code i + 1} start
+         */
+        private final int @NonNull [] lineStarts;
+
+        /**
+         * For each enabled position, the cell it is placed in as {@code y * length + x}, or -1 if it falls outside the
+         * pane after rotating
+         */
+        private final int @NonNull [] cells;
+
+        /**
+         * Compiles a new layout plan
+         *
+         * @param length           the length of the pane, limited to the space available
+         * @param height           the height of the pane, limited to the space available
+         * @param orientation      the orientation of the pane
+         * @param rotation         the rotation of the pane
+         * @param flipHorizontally whether the pane is flipped horizontally
+         * @param flipVertically   whether the pane is flipped vertically
+         * @param mask             the mask of the pane
+         * @since 3.4.0
+         */
+        private LayoutPlan(final int length, final int height, final @NonNull Orientation orientation, final int rotation,
+                           final boolean flipHorizontally, final boolean flipVertically, final @NonNull Mask mask) {
+            this.length = length;
+            this.height = height;
+            this.orientation = orientation;
+            this.rotation = rotation;
+            this.flipHorizontally = flipHorizontally;
+            this.flipVertically = flipVertically;
+            this.mask = mask;
+
+            final int lineCount;
+            final int lineLength;
+
+            if (orientation == Orientation.HORIZONTAL) {
+                lineCount = height;
+                lineLength = mask.getLength();
+            } else if (orientation == Orientation.VERTICAL) {
+                lineCount = length;
+                lineLength = mask.getHeight();
+            } else {
+                throw new IllegalStateException("Unknown orientation '" + orientation + "'");
+            }
+
+            this.lineStarts = new int[lineCount + 1];
+
+            for (int line = 0; line < lineCount; line++) {
+                final int enabled = orientation == Orientation.HORIZONTAL
+                    ? mask.amountOfEnabledSlotsInRow(line)
+                    : mask.amountOfEnabledSlotsInColumn(line);
+
+                this.lineStarts[line + 1] = this.lineStarts[line] + enabled;
+            }
+
+            this.cells = new int[this.lineStarts[lineCount]];
+
+            final GeometryTransform transform = GeometryTransform.of(length, height, rotation, flipHorizontally,
+                flipVertically);
+
+            int position = 0;
+
+            for (int line = 0; line < lineCount; line++) {
+                for (int index = 0; index < lineLength; index++) {
+                    final int x = orientation == Orientation.HORIZONTAL ? index : line;
+                    final int y = orientation == Orientation.HORIZONTAL ? line : index;
+
+                    if (mask.isEnabled(x, y)) {
+                        this.cells[position++] = transform.apply(x, y);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Gets the amount of lines in this plan
+         *
+         * @return the amount of lines
+         * @since 3.4.0
+         */
+        @Contract(pure = true)
+        private int lineCount() {
+            return lineStarts.length - 1;
+        }
+
+        /**
+         * Checks whether this plan was compiled for the specified settings.
+         *
+         * @param length           the length of the pane, limited to the space available
+         * @param height           the height of the pane, limited to the space available
+         * @param orientation      the orientation of the pane
+         * @param rotation         the rotation of the pane
+         * @param flipHorizontally whether the pane is flipped horizontally
+         * @param flipVertically   whether the pane is flipped vertically
+         * @param mask             the mask of the pane
+         * @return true if this plan can be used for these settings, false otherwise
+         * @since 3.4.0
+         */
+        @Contract(pure = true)
+        private boolean matches(final int length, final int height, final @NonNull Orientation orientation,
+                                final int rotation, final boolean flipHorizontally, final boolean flipVertically,
+                                final @NonNull Mask mask) {
+            return this.length == length && this.height == height && this.orientation == orientation &&
+                this.rotation == rotation && this.flipHorizontally == flipHorizontally &&
+                this.flipVertically == flipVertically && this.mask == mask;
+        }
+
+    }
+
+    /**
+     * A list of items which marks its pane as modified whenever it is changed, since the items may also be changed
+     * through the list returned by {@link #getItems()}.
+     *
+     * @since 3.4.0
+     */
+    private static final class ItemList extends ArrayList<GuiItem> {
+
+        /**
+         * Called whenever this list is changed
+         */
+        private final @NonNull Runnable onModified;
+
+        /**
+         * Creates a new item list with the specified initial capacity
+         *
+         * @param initialCapacity the initial capacity
+         * @param onModified      called whenever this list is changed
+         * @since 3.4.0
+         */
+        private ItemList(final int initialCapacity, final @NonNull Runnable onModified) {
+            super(initialCapacity);
+
+            this.onModified = onModified;
+        }
+
+        @Override
+        public GuiItem set(final int index, final GuiItem element) {
+            final GuiItem previous = super.set(index, element);
+
+            onModified.run();
+
+            return previous;
+        }
+
+        @Override
+        public boolean add(final GuiItem element) {
+            super.add(element);
+
+            onModified.run();
+
+            return true;
+        }
+
+        @Override
+        public void add(final int index, final GuiItem element) {
+            super.add(index, element);
+
+            onModified.run();
+        }
+
+        @Override
+        public boolean addAll(final @NonNull Collection<? extends GuiItem> collection) {
+            return modified(super.addAll(collection));
+        }
+
+        @Override
+        public boolean addAll(final int index, final @NonNull Collection<? extends GuiItem> collection) {
+            return modified(super.addAll(index, collection));
+        }
+
+        @Override
+        public GuiItem remove(final int index) {
+            final GuiItem previous = super.remove(index);
+
+            onModified.run();
+
+            return previous;
+        }
+
+        @Override
+        public boolean remove(final @Nullable Object object) {
+            return modified(super.remove(object));
+        }
+
+        @Override
+        public boolean removeAll(final @NonNull Collection<?> collection) {
+            return modified(super.removeAll(collection));
+        }
+
+        @Override
+        public boolean retainAll(final @NonNull Collection<?> collection) {
+            return modified(super.retainAll(collection));
+        }
+
+        @Override
+        public boolean removeIf(final @NonNull Predicate<? super GuiItem> filter) {
+            return modified(super.removeIf(filter));
+        }
+
+        @Override
+        public void replaceAll(final @NonNull UnaryOperator<GuiItem> operator) {
+            super.replaceAll(operator);
+
+            onModified.run();
+        }
+
+        @Override
+        public void sort(final @Nullable Comparator<? super GuiItem> comparator) {
+            super.sort(comparator);
+
+            onModified.run();
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+
+            onModified.run();
+        }
+
+        @Override
+        protected void removeRange(final int fromIndex, final int toIndex) {
+            super.removeRange(fromIndex, toIndex);
+
+            onModified.run();
+        }
+
+        @Override
+        public @NonNull List<GuiItem> subList(final int fromIndex, final int toIndex) {
+            return new ItemSubList(super.subList(fromIndex, toIndex), onModified);
+        }
+
+        /**
+         * Marks the pane as modified if this list was changed
+         *
+         * @param modified whether this list was changed
+         * @return whether this list was changed
+         * @since 3.4.0
+         */
+        private boolean modified(final boolean modified) {
+            if (modified) {
+                onModified.run();
+            }
+
+            return modified;
+        }
+
+    }
+
+    /**
+     * A view of a range of an {@link ItemList}. The views of an {@link ArrayList} write some changes directly into the
+     * backing array, so this marks the pane as modified itself.
+     *
+     * @since 3.4.0
+     */
+    private static final class ItemSubList extends AbstractList<GuiItem> {
+
+        /**
+         * The range of the item list
+         */
+        private final @NonNull List<GuiItem> items;
+
+        /**
+         * Called whenever this list is changed
+         */
+        private final @NonNull Runnable onModified;
+
+        /**
+         * Creates a new view of a range of an item list
+         *
+         * @param items      the range of the item list
+         * @param onModified called whenever this list is changed
+         * @since 3.4.0
+         */
+        private ItemSubList(final @NonNull List<GuiItem> items, final @NonNull Runnable onModified) {
+            this.items = items;
+            this.onModified = onModified;
+        }
+
+        @Override
+        public GuiItem get(final int index) {
+            return items.get(index);
+        }
+
+        @Override
+        public int size() {
+            return items.size();
+        }
+
+        @Override
+        public GuiItem set(final int index, final GuiItem element) {
+            final GuiItem previous = items.set(index, element);
+
+            onModified.run();
+
+            return previous;
+        }
+
+        @Override
+        public void add(final int index, final GuiItem element) {
+            items.add(index, element);
+
+            this.modCount++;
+            onModified.run();
+        }
+
+        @Override
+        public GuiItem remove(final int index) {
+            final GuiItem previous = items.remove(index);
+
+            this.modCount++;
+            onModified.run();
+
+            return previous;
+        }
+
+        @Override
+        protected void removeRange(final int fromIndex, final int toIndex) {
+            items.subList(fromIndex, toIndex).clear();
+
+            this.modCount++;
+            onModified.run();
+        }
+
+    }
+
     /**
      * An enum containing different alignments that can be used on the outline pane.
      *
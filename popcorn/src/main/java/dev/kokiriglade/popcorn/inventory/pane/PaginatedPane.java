@@ -1,5 +1,6 @@
 package dev.kokiriglade.popcorn.inventory.pane;
 
+import com.google.common.collect.Iterators;
 import dev.kokiriglade.popcorn.Popcorn;
 import dev.kokiriglade.popcorn.builder.item.ItemBuilder;
 import dev.kokiriglade.popcorn.inventory.gui.GuiItem;
@@ -15,14 +16,13 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.jetbrains.annotations.Contract;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -34,11 +34,22 @@ import java.util.stream.Collectors;
 public class PaginatedPane extends Pane {
 
     /**
-     * A set of panes for the different pages
+     * The panes of each page, by page index. The panes of a page are sorted by priority.
      *
      * @since 3.0.0
      */
-    private @NonNull Map<Integer, List<Pane>> panes = new HashMap<>();
+    private final @NonNull List<List<Pane>> panes = new ArrayList<>();
+
+    /**
+     * A view of the panes of all pages, including their child panes, see {@link #getPanes()}
+     */
+    private final @NonNull Collection<Pane> panesView = new PageView<>(pane ->
+        Iterators.concat(Iterators.singletonIterator(pane), pane.getPanes().iterator()));
+
+    /**
+     * A view of the items of all pages, see {@link #getItems()}
+     */
+    private final @NonNull Collection<GuiItem> itemsView = new PageView<>(pane -> pane.getItems().iterator());
 
     /**
      * The current page
@@ -127,10 +138,12 @@ public class PaginatedPane extends Pane {
      * @since 3.0.0
      */
     public void setPage(final int page) {
-        if (!panes.containsKey(page)) {
+        if (page < 0 || page >= panes.size()) {
             throw new ArrayIndexOutOfBoundsException("page outside range");
         }
         this.page = page;
+
+        markModified();
     }
 
     /**
@@ -145,12 +158,10 @@ public class PaginatedPane extends Pane {
 
     /**
      * Adds the specified pane to a new page. The new page will be at the index one after the highest indexed page
-     * currently in this paginated pane. If the highest index pane is {@code Integer.MAX_VALUE}, this method will throw
-     * an {@link ArithmeticException}. If this paginated pane has no pages, the index of the newly created page will
+     * currently in this paginated pane. If this paginated pane has no pages, the index of the newly created page will
      * be zero.
      *
      * @param pane the pane to add to a new page
-     * @throws ArithmeticException if the highest indexed page is the maximum value
      * @since 3.0.0
      */
     public void addPage(final @NonNull Pane pane) {
@@ -158,42 +169,41 @@ public class PaginatedPane extends Pane {
 
         list.add(pane);
 
-        if (this.panes.isEmpty()) {
-            this.panes.put(0, list);
+        this.panes.add(list);
 
-            return;
-        }
-
-        int highest = Integer.MIN_VALUE;
-
-        for (final int page : this.panes.keySet()) {
-            if (page > highest) {
-                highest = page;
-            }
-        }
-
-        if (highest == Integer.MAX_VALUE) {
-            throw new ArithmeticException("Can't increment page index beyond its maximum value");
-        }
-
-        this.panes.put(highest + 1, list);
+        markModified();
     }
 
     /**
-     * Assigns a pane to a selected page
+     * Assigns a pane to a selected page. If the page doesn't exist yet, it is created, along with any empty pages
+     * before it, so pages are always numbered consecutively from zero.
      *
      * @param page the page to assign the pane to
      * @param pane the new pane
+     * @throws IllegalArgumentException if the page is negative
      * @since 3.0.0
      */
     public void addPane(final int page, final @NonNull Pane pane) {
-        if (!this.panes.containsKey(page)) {
-            this.panes.put(page, new ArrayList<>());
+        if (page < 0) {
+            throw new IllegalArgumentException("Page may not be negative");
+        }
+
+        while (this.panes.size() <= page) {
+            this.panes.add(new ArrayList<>(1));
+        }
+
+        final List<Pane> pagePanes = this.panes.get(page);
+
+        //inserted after all panes of the same or a lower priority, which keeps the page sorted
+        int index = pagePanes.size();
+
+        while (index > 0 && pagePanes.get(index - 1).getPriority().compareTo(pane.getPriority()) > 0) {
+            index--;
         }
 
-        this.panes.get(page).add(pane);
+        pagePanes.add(index, pane);
 
-        this.panes.get(page).sort(Comparator.comparing(Pane::getPriority));
+        markModified();
     }
 
     /**
@@ -315,13 +325,11 @@ public class PaginatedPane extends Pane {
     @Override
     public void display(final @NonNull InventoryComponent inventoryComponent, final int paneOffsetX, final int paneOffsetY, final int maxLength,
                         final int maxHeight) {
-        final List<Pane> panes = this.panes.get(page);
-
-        if (panes == null) {
+        if (page >= this.panes.size()) {
             return;
         }
 
-        for (final Pane pane : panes) {
+        for (final Pane pane : this.panes.get(page)) {
             if (!pane.isVisible()) {
                 continue;
             }
@@ -365,7 +373,12 @@ public class PaginatedPane extends Pane {
 
         boolean success = false;
 
-        for (final Pane pane : new ArrayList<>(this.panes.getOrDefault(page, Collections.emptyList()))) {
+        final List<Pane> pagePanes = page < this.panes.size() ? this.panes.get(page) : Collections.emptyList();
+
+        //indexed, since a click action may add panes to this page
+        for (int index = 0; index < pagePanes.size(); index++) {
+            final Pane pane = pagePanes.get(index);
+
             if (!pane.isVisible()) {
                 continue;
             }
@@ -377,15 +390,45 @@ public class PaginatedPane extends Pane {
         return success;
     }
 
+    @Contract(pure = true)
+    @Override
+    public boolean isClickable(final int slot, final int maxLength, final int maxHeight) {
+        return containsSlot(slot, maxLength, 0, 0, maxLength, maxHeight);
+    }
+
+    @Override
+    public boolean isModifiedSince(final long time) {
+        if (getLastModified() > time) {
+            return true;
+        }
+
+        //panes on other pages aren't displayed, so changes to them don't matter until the page is changed
+        if (page >= this.panes.size()) {
+            return false;
+        }
+
+        for (final Pane pane : this.panes.get(page)) {
+            if (pane.isModifiedSince(time)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Contract(pure = true)
     @Override
     public @NonNull PaginatedPane copy() {
         final PaginatedPane paginatedPane = new PaginatedPane(getSlot(), length, height, getPriority());
 
-        for (final Map.Entry<Integer, List<Pane>> entry : panes.entrySet()) {
-            for (final Pane pane : entry.getValue()) {
-                paginatedPane.addPane(entry.getKey(), pane.copy());
+        for (final List<Pane> pagePanes : panes) {
+            final List<Pane> copiedPanes = new ArrayList<>(pagePanes.size());
+
+            for (final Pane pane : pagePanes) {
+                copiedPanes.add(pane.copy());
             }
+
+            paginatedPane.panes.add(copiedPanes);
         }
 
         paginatedPane.setVisible(isVisible());
@@ -408,37 +451,24 @@ public class PaginatedPane extends Pane {
      * @since 3.0.0
      */
     public void deletePage(final int page) {
-        if (this.panes.remove(page) == null) {
+        if (page < 0 || page >= this.panes.size()) {
             return;
         }
 
-        final Map<Integer, List<Pane>> newPanes = new HashMap<>();
-
-        for (final Map.Entry<Integer, List<Pane>> entry : this.panes.entrySet()) {
-            final int index = entry.getKey();
-            final List<Pane> panes = entry.getValue();
+        this.panes.remove(page);
 
-            if (index > page) {
-                newPanes.put(index - 1, panes);
-            } else {
-                newPanes.put(index, panes);
-            }
-        }
-
-        this.panes = newPanes;
+        markModified();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned collection is an unmodifiable view, which iterates over the pages without copying their panes.
+     */
     @Contract(pure = true)
     @Override
     public @NonNull Collection<Pane> getPanes() {
-        final Collection<Pane> panes = new HashSet<>();
-
-        this.panes.forEach((integer, p) -> {
-            p.forEach(pane -> panes.addAll(pane.getPanes()));
-            panes.addAll(p);
-        });
-
-        return panes;
+        return panesView;
     }
 
     /**
@@ -456,24 +486,72 @@ public class PaginatedPane extends Pane {
      */
     @Contract(pure = true)
     public @NonNull Collection<Pane> getPanes(final int page) {
-        final Collection<Pane> panes = this.panes.get(page);
-
-        if (panes == null) {
+        if (page < 0 || page >= this.panes.size()) {
             throw new IllegalArgumentException("Invalid page");
         }
 
-        return Collections.unmodifiableCollection(panes);
+        return Collections.unmodifiableCollection(this.panes.get(page));
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned collection is an unmodifiable view, which iterates over the pages without copying their items.
+     */
     @Contract(pure = true)
     @Override
     public @NonNull Collection<GuiItem> getItems() {
-        return getPanes().stream().flatMap(pane -> pane.getItems().stream()).collect(Collectors.toList());
+        return itemsView;
     }
 
     @Override
     public void clear() {
         panes.clear();
+
+        markModified();
+    }
+
+    /**
+     * An unmodifiable view of the elements each pane of each page contributes, in page order
+     *
+     * @param <T> the type of the elements
+     * @since 3.4.0
+     */
+    private final class PageView<T> extends AbstractCollection<T> {
+
+        /**
+         * Gets the elements a pane contributes
+         */
+        private final @NonNull Function<@NonNull Pane, @NonNull Iterator<? extends T>> elements;
+
+        /**
+         * Creates a new view
+         *
+         * @param elements gets the elements a pane contributes
+         * @since 3.4.0
+         */
+        private PageView(final @NonNull Function<@NonNull Pane, @NonNull Iterator<? extends T>> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public @NonNull Iterator<T> iterator() {
+            return Iterators.unmodifiableIterator(Iterators.concat(Iterators.transform(
+                Iterators.concat(Iterators.transform(panes.iterator(), List::iterator)),
+                elements::apply
+            )));
+        }
+
+        @Override
+        public int size() {
+            return Iterators.size(iterator());
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return !iterator().hasNext();
+        }
+
     }
 
 }
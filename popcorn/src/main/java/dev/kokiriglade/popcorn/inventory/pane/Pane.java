@@ -5,6 +5,7 @@ import dev.kokiriglade.popcorn.inventory.gui.InventoryComponent;
 import dev.kokiriglade.popcorn.inventory.gui.type.util.Gui;
 import dev.kokiriglade.popcorn.inventory.pane.util.Mask;
 import dev.kokiriglade.popcorn.inventory.pane.util.Slot;
+import dev.kokiriglade.popcorn.inventory.util.ModificationClock;
 import dev.kokiriglade.popcorn.persistence.UUIDTagType;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import org.bukkit.event.inventory.InventoryClickEvent;
@@ -57,6 +58,10 @@ public abstract class Pane {
      * The priority of the pane, determines when it will be rendered
      */
     private @NonNull Priority priority;
+    /**
+     * The time at which this pane was last modified, as per {@link ModificationClock}
+     */
+    private long lastModified = ModificationClock.tick();
 
     /**
      * Constructs a new default pane
@@ -183,7 +188,7 @@ public abstract class Pane {
     @Contract(pure = true)
     protected static <T extends GuiItem> @Nullable T findMatchingItem(final @NonNull Collection<T> items, final @NonNull ItemStack item) {
         for (final T guiItem : items) {
-            if (matchesItem(guiItem, item)) {
+            if (!guiItem.isDecoration() && matchesItem(guiItem, item)) {
                 return guiItem;
             }
         }
@@ -191,6 +196,65 @@ public abstract class Pane {
         return null;
     }
 
+    /**
+     * Finds the {@link GuiItem} of this pane that was clicked. The item is looked up by the clicked slot in the
+     * inventory component, which records the item and pane it rendered, so no item meta has to be read. If the clicked
+     * slot holds an item whose pane was not recorded, this falls back to {@link #findMatchingItem(Collection, ItemStack)}
+     * on the provided items. If this pane was modified since it was rendered, the recorded item is only used while it's
+     * still one of the provided items and visible, so removed or hidden items can't be clicked again. When the gui
+     * validates clicked items, the clicked item's internal data must also match the found item, otherwise null is
+     * returned. Decorations are never found, see {@link GuiItem#decoration(ItemStack)}.
+     *
+     * @param gui                the gui in which was clicked
+     * @param inventoryComponent the inventory component in which this pane resides
+     * @param event              the event that occurred while clicking
+     * @param slot               the slot that was clicked in, relative to the inventory component
+     * @param items              the items of this pane, used as fallback
+     * @return the clicked item or null if none of this pane's items was clicked
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    protected @Nullable GuiItem findClickedItem(final @NonNull Gui gui, final @NonNull InventoryComponent inventoryComponent,
+                                                final @NonNull InventoryClickEvent event, final int slot,
+                                                final @NonNull Collection<? extends GuiItem> items) {
+        final int length = inventoryComponent.getLength();
+
+        if (slot < 0 || slot >= length * inventoryComponent.getHeight()) {
+            return null;
+        }
+
+        final int x = slot % length;
+        final int y = slot / length;
+
+        final GuiItem guiItem = inventoryComponent.getGuiItem(x, y);
+        final ItemStack itemStack = event.getCurrentItem();
+
+        if (guiItem == null || guiItem.isDecoration()) {
+            return null;
+        }
+
+        final Pane owner = inventoryComponent.getItemOwner(x, y);
+
+        if (owner == null) {
+            return itemStack == null ? null : findMatchingItem(items, itemStack);
+        }
+
+        if (owner != this) {
+            return null;
+        }
+
+        //the recorded item may have been removed or hidden since the render
+        if (isModifiedSince(inventoryComponent.getRenderedAt()) && !(guiItem.isVisible() && items.contains(guiItem))) {
+            return itemStack == null ? null : findMatchingItem(items, itemStack);
+        }
+
+        if (gui.isValidatingClickedItems() && (itemStack == null || !matchesItem(guiItem, itemStack))) {
+            return null;
+        }
+
+        return guiItem;
+    }
+
     /**
      * Creates a pane which displays as a border around the outside of the pane consisting of the provided item. The
      * slot, length and height parameters are used for the respective properties of the pane. If either the length or
@@ -240,6 +304,25 @@ public abstract class Pane {
         return pane;
     }
 
+    /**
+     * Creates a pane which displays as a border around the outside of the pane consisting of the provided item stack.
+     * The border is made of a single decoration, see {@link GuiItem#decoration(ItemStack)}. The slot, length and height
+     * parameters are used for the respective properties of the pane. If either the length or height is negative an
+     * {@link IllegalArgumentException} will be thrown.
+     *
+     * @param slot   the slot of the pane
+     * @param length the length of the pane
+     * @param height the height of the pane
+     * @param item   the item stack of which the border is made
+     * @return the created pane which displays a border
+     * @throws IllegalArgumentException if length or height is negative
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public static @NonNull Pane createBorder(final @NonNull Slot slot, final int length, final int height, final @NonNull ItemStack item) {
+        return createBorder(slot, length, height, GuiItem.decoration(item));
+    }
+
     /**
      * Creates a pane which displays as a border around the outside of the pane consisting of the provided item. The x,
      * y, length and height parameters are used for the respective properties of the pane. If either the length or
@@ -308,6 +391,8 @@ public abstract class Pane {
      */
     public void setLength(final int length) {
         this.length = length;
+
+        markModified();
     }
 
     /**
@@ -329,6 +414,8 @@ public abstract class Pane {
      */
     public void setHeight(final int height) {
         this.height = height;
+
+        markModified();
     }
 
     /**
@@ -365,6 +452,8 @@ public abstract class Pane {
         //the length should be the length of the parent container, but we don't have that, so just use one
         this.x = slot.getX(1);
         this.y = slot.getY(1);
+
+        markModified();
     }
 
     /**
@@ -391,6 +480,8 @@ public abstract class Pane {
         this.x = x;
 
         this.slot = Slot.fromXY(x, getY());
+
+        markModified();
     }
 
     /**
@@ -417,6 +508,8 @@ public abstract class Pane {
         this.y = y;
 
         this.slot = Slot.fromXY(getX(), y);
+
+        markModified();
     }
 
     /**
@@ -451,6 +544,8 @@ public abstract class Pane {
      */
     public void setVisible(final boolean visible) {
         this.visible = visible;
+
+        markModified();
     }
 
     /**
@@ -471,6 +566,53 @@ public abstract class Pane {
                                   final @NonNull InventoryClickEvent event, final int slot, final int paneOffsetX, final int paneOffsetY,
                                   final int maxLength, final int maxHeight);
 
+    /**
+     * Checks whether a click on the specified slot may be handled by this pane, if this pane were placed directly in an
+     * inventory component of the specified size. Inventory components use this to find the panes a click should be
+     * routed to, without asking every pane. By default, this returns true, so this pane is asked about every click;
+     * panes that only handle clicks within their bounds should override this.
+     *
+     * @param slot      the slot that was clicked in
+     * @param maxLength the length of the inventory component
+     * @param maxHeight the height of the inventory component
+     * @return true if this pane may handle the click, false if it certainly won't
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public boolean isClickable(final int slot, final int maxLength, final int maxHeight) {
+        return true;
+    }
+
+    /**
+     * Checks whether the specified slot lies within the bounds of this pane, in the same way the panes in this library
+     * determine whether a click belongs to them.
+     *
+     * @param slot        the slot to check
+     * @param totalLength the length of the inventory component
+     * @param paneOffsetX the pane's offset on the x axis
+     * @param paneOffsetY the pane's offset on the y axis
+     * @param maxLength   the maximum length of the pane
+     * @param maxHeight   the maximum height of the pane
+     * @return true if the slot is within the bounds of this pane, false otherwise
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    protected boolean containsSlot(final int slot, final int totalLength, final int paneOffsetX, final int paneOffsetY,
+                                   final int maxLength, final int maxHeight) {
+        final int length = Math.min(this.length, maxLength);
+        final int height = Math.min(this.height, maxHeight);
+
+        final int xPosition = getSlot().getX(maxLength);
+        final int yPosition = getSlot().getY(maxLength);
+
+        final int adjustedSlot = slot - (xPosition + paneOffsetX) - totalLength * (yPosition + paneOffsetY);
+
+        final int x = adjustedSlot % totalLength;
+        final int y = adjustedSlot / totalLength;
+
+        return x >= 0 && x < length && y >= 0 && y < height;
+    }
+
     /**
      * Returns the priority of the pane
      *
@@ -489,6 +631,43 @@ public abstract class Pane {
      */
     public void setPriority(final @NonNull Priority priority) {
         this.priority = priority;
+
+        markModified();
+    }
+
+    /**
+     * Checks whether this pane may display differently than it did at the specified time, as per
+     * {@link ModificationClock}. Inventory components use this to only render the panes that changed. Panes that
+     * cannot tell return true, which is what this implementation does.
+     *
+     * @param time the time to compare against
+     * @return true if this pane may have been modified since the specified time, false otherwise
+     * @since 3.4.0
+     */
+    public boolean isModifiedSince(final long time) {
+        return true;
+    }
+
+    /**
+     * Gets the time at which the properties of this pane were last modified, as per {@link ModificationClock}. This
+     * does not include modifications to the items or panes inside this pane.
+     *
+     * @return the time of the last modification
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    protected final long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Marks this pane as modified, so it will be rendered again the next time it is displayed. Implementations should
+     * call this whenever they change in a way that affects how they are displayed.
+     *
+     * @since 3.4.0
+     */
+    protected void markModified() {
+        this.lastModified = ModificationClock.tick();
     }
 
     /**
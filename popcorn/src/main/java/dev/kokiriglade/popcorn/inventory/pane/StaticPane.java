@@ -4,7 +4,7 @@ import dev.kokiriglade.popcorn.inventory.gui.GuiItem;
 import dev.kokiriglade.popcorn.inventory.gui.InventoryComponent;
 import dev.kokiriglade.popcorn.inventory.gui.type.util.Gui;
 import dev.kokiriglade.popcorn.inventory.pane.util.Slot;
-import dev.kokiriglade.popcorn.inventory.util.GeometryUtil;
+import dev.kokiriglade.popcorn.inventory.util.GeometryTransform;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
@@ -13,11 +13,14 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.jetbrains.annotations.Contract;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -25,8 +28,10 @@ import java.util.function.Consumer;
  * <p>
  * This pane allows you to specify the positions of the items either in the form of an x and y coordinate pair or as an
  * index, in which case the indexing starts from the top left and continues to the right and bottom, with the horizontal
- * axis taking priority. There are nuances at play with regard to mixing these two types of positioning systems within
- * the same pane. It's recommended to only use one of these systems per pane and to not mix them.
+ * axis taking priority. Positions are resolved to a cell when an item is added, so an index refers to the cell it
+ * points to at the pane's length at that time. Both systems may be mixed within the same pane: an item overwrites any
+ * other item in the same cell, regardless of how either position was specified. Items outside of the pane are kept,
+ * but aren't shown until the pane is resized to fit them.
  * </p>
  *
  * @since 3.0.0
@@ -35,10 +40,14 @@ import java.util.function.Consumer;
 public class StaticPane extends Pane implements Flippable, Rotatable {
 
     /**
-     * A map of locations inside this pane and their item. The locations are stored in a way where the x coordinate is
-     * the key and the y coordinate is the value.
+     * The items inside this pane, by cell. A cell is {@code y * length + x}; empty cells are null.
      */
-    private final @NonNull Map<Slot, GuiItem> items;
+    private @Nullable GuiItem @NonNull [] items;
+
+    /**
+     * The items that are outside of this pane, by the slot they were added at. These items aren't displayed.
+     */
+    private final @NonNull Map<Slot, GuiItem> outsideItems = new HashMap<>(0);
 
     /**
      * The clockwise rotation of this pane in degrees
@@ -62,7 +71,7 @@ public class StaticPane extends Pane implements Flippable, Rotatable {
     public StaticPane(final @NonNull Slot slot, final int length, final int height, final @NonNull Priority priority) {
         super(slot, length, height, priority);
 
-        this.items = new HashMap<>(length * height);
+        this.items = new GuiItem[length * height];
     }
 
     /**
@@ -117,9 +126,6 @@ public class StaticPane extends Pane implements Flippable, Rotatable {
 
     /**
      * {@inheritDoc}
-     * <p>
-     * If there are multiple items in the same position when displaying the items, either one of those items may be
-     * shown. In particular, there is no guarantee that a specific item will be shown.
      *
      * @param inventoryComponent {@inheritDoc}
      * @param paneOffsetX        {@inheritDoc}
@@ -134,43 +140,35 @@ public class StaticPane extends Pane implements Flippable, Rotatable {
         final int length = Math.min(this.length, maxLength);
         final int height = Math.min(this.height, maxHeight);
 
-        items.entrySet().stream().filter(entry -> entry.getValue().isVisible()).forEach(entry -> {
-            final Slot location = entry.getKey();
+        final GeometryTransform transform = GeometryTransform.of(length, height, rotation, flipHorizontally,
+            flipVertically);
 
-            int x = location.getX(getLength());
-            int y = location.getY(getLength());
+        final int xPosition = getSlot().getX(maxLength) + paneOffsetX;
+        final int yPosition = getSlot().getY(maxLength) + paneOffsetY;
 
-            if (flipHorizontally) {
-                x = length - x - 1;
-            }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < length; x++) {
+                final GuiItem item = items[y * this.length + x];
 
-            if (flipVertically) {
-                y = height - y - 1;
-            }
+                if (item == null || !item.isVisible()) {
+                    continue;
+                }
 
-            final Map.Entry<Integer, Integer> coordinates = GeometryUtil.processClockwiseRotation(x, y, length, height,
-                rotation);
+                final int cell = transform.apply(x, y);
 
-            x = coordinates.getKey();
-            y = coordinates.getValue();
+                if (cell < 0) {
+                    continue;
+                }
 
-            if (x < 0 || x >= length || y < 0 || y >= height) {
-                return;
+                inventoryComponent.setItem(item, xPosition + cell % length, yPosition + cell / length, this);
             }
-
-            final GuiItem item = entry.getValue();
-
-            final Slot slot = getSlot();
-            final int finalRow = slot.getY(maxLength) + y + paneOffsetY;
-            final int finalColumn = slot.getX(maxLength) + x + paneOffsetX;
-
-            inventoryComponent.setItem(item, finalColumn, finalRow);
-        });
+        }
     }
 
     /**
-     * Adds a gui item at the specific spot in the pane. If there is another item specified in terms of x and y
-     * coordinates that are equal to the coordinates of this item, the old item will be overwritten by this item.
+     * Adds a gui item at the specific spot in the pane. If there is another item at this position, the old item will be
+     * overwritten by this item. If the position is outside of this pane, the item is kept, but isn't shown until the
+     * pane is resized to fit it.
      *
      * @param item the item to set
      * @param x    the x coordinate of the position of the item
@@ -182,18 +180,24 @@ public class StaticPane extends Pane implements Flippable, Rotatable {
     }
 
     /**
-     * Adds a gui item at the specific spot in the pane. If the slot is specified in terms of an x and y coordinate pair
-     * and this pane contains another item whose position is specified as such and these positions are equal, the old
-     * item will be overwritten by this item. If the slot is specified in terms of an index and this pane contains
-     * another item whose position is specified as such and these positions are equal, the old item will be overwritten
-     * by this item.
+     * Adds a gui item at the specific spot in the pane. If there is another item at this position, the old item will be
+     * overwritten by this item. If the position is outside of this pane, the item is kept, but isn't shown until the
+     * pane is resized to fit it.
      *
      * @param item the item to set
      * @param slot the position of the item
      * @since 3.0.0
      */
     public void addItem(final @NonNull GuiItem item, final @NonNull Slot slot) {
-        this.items.put(slot, item);
+        final int cell = getCell(slot);
+
+        if (cell < 0) {
+            this.outsideItems.put(slot, item);
+        } else {
+            this.items[cell] = item;
+        }
+
+        markModified();
     }
 
     /**
@@ -203,30 +207,44 @@ public class StaticPane extends Pane implements Flippable, Rotatable {
      * @since 3.0.0
      */
     public void removeItem(final @NonNull GuiItem item) {
-        items.values().removeIf(guiItem -> guiItem.equals(item));
+        for (int cell = 0; cell < items.length; cell++) {
+            if (item.equals(items[cell])) {
+                items[cell] = null;
+            }
+        }
+
+        outsideItems.values().removeIf(outsideItem -> outsideItem.equals(item));
+
+        markModified();
     }
 
     /**
-     * Removes the specified item from the pane. This will only remove items whose slot was specified in terms of an x
-     * and y coordinate pair which matches the coordinate specified.
+     * Removes the item at the specified position from the pane.
      *
      * @param x the x coordinate of the item to remove
      * @param y the y coordinate of the item to remove
      * @since 3.0.0
      */
     public void removeItem(final int x, final int y) {
-        this.items.remove(Slot.fromXY(x, y));
+        removeItem(Slot.fromXY(x, y));
     }
 
     /**
-     * Removes the specified item from the pane. This will only remove items whose slot was specified in the same way as
-     * the original slot and whose slot positions match.
+     * Removes the item at the specified position from the pane.
      *
      * @param slot the slot of the item to remove
      * @since 3.0.0
      */
     public void removeItem(final @NonNull Slot slot) {
-        this.items.remove(slot);
+        final int cell = getCell(slot);
+
+        if (cell >= 0) {
+            this.items[cell] = null;
+        }
+
+        this.outsideItems.remove(slot);
+
+        markModified();
     }
 
     @Override
@@ -255,13 +273,7 @@ public class StaticPane extends Pane implements Flippable, Rotatable {
 
         callOnClick(event);
 
-        final ItemStack itemStack = event.getCurrentItem();
-
-        if (itemStack == null) {
-            return false;
-        }
-
-        final GuiItem clickedItem = findMatchingItem(items.values(), itemStack);
+        final GuiItem clickedItem = findClickedItem(gui, inventoryComponent, event, slot, getItemsInside());
 
         if (clickedItem == null) {
             return false;
@@ -272,13 +284,43 @@ public class StaticPane extends Pane implements Flippable, Rotatable {
         return true;
     }
 
+    @Contract(pure = true)
+    @Override
+    public boolean isClickable(final int slot, final int maxLength, final int maxHeight) {
+        return containsSlot(slot, maxLength, 0, 0, maxLength, maxHeight);
+    }
+
+    @Contract(pure = true)
+    @Override
+    public boolean isModifiedSince(final long time) {
+        if (getLastModified() > time) {
+            return true;
+        }
+
+        for (final GuiItem item : items) {
+            if (item != null && item.isModifiedSince(time)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Contract(pure = true)
     @Override
     public @NonNull StaticPane copy() {
         final StaticPane staticPane = new StaticPane(getSlot(), length, height, getPriority());
 
-        for (final Map.Entry<Slot, GuiItem> entry : items.entrySet()) {
-            staticPane.addItem(entry.getValue().copy(), entry.getKey());
+        for (int cell = 0; cell < items.length; cell++) {
+            final GuiItem item = items[cell];
+
+            if (item != null) {
+                staticPane.items[cell] = item.copy();
+            }
+        }
+
+        for (final Map.Entry<Slot, GuiItem> entry : outsideItems.entrySet()) {
+            staticPane.outsideItems.put(entry.getKey(), entry.getValue().copy());
         }
 
         staticPane.setVisible(isVisible());
@@ -304,25 +346,46 @@ public class StaticPane extends Pane implements Flippable, Rotatable {
      */
     public void fillWith(final @NonNull ItemStack itemStack, final @Nullable Consumer<InventoryClickEvent> action,
                          final @NonNull Plugin plugin) {
-        //The non-empty spots
-        final Set<Slot> locations = this.items.keySet();
-
-        for (int y = 0; y < this.getHeight(); y++) {
-            for (int x = 0; x < this.getLength(); x++) {
-                boolean found = false;
-
-                for (final Slot location : locations) {
-                    if (location.getX(getLength()) == x && location.getY(getLength()) == y) {
-                        found = true;
-                        break;
-                    }
-                }
+        for (int cell = 0; cell < items.length; cell++) {
+            if (items[cell] == null) {
+                items[cell] = new GuiItem(itemStack, action, plugin);
+            }
+        }
 
-                if (!found) {
-                    this.addItem(new GuiItem(itemStack, action, plugin), x, y);
-                }
+        markModified();
+    }
+
+    /**
+     * Fills all empty space in the pane with a single decoration of the given {@code itemStack}, see
+     * {@link GuiItem#decoration(ItemStack, Plugin)}. Unlike {@link #fillWith(ItemStack, Consumer, Plugin)}, this creates
+     * one gui item for all empty cells. Since decorations are never clicked, clicks on these cells are passed on to the
+     * panes below this pane, and removing the decoration with {@link #removeItem(GuiItem)} clears all of these cells.
+     *
+     * @param itemStack the {@link ItemStack} to fill the empty space with
+     * @param plugin    the plugin that will be the owner of the decoration
+     * @since 3.4.0
+     */
+    public void fillWithDecoration(final @NonNull ItemStack itemStack, final @NonNull Plugin plugin) {
+        final GuiItem decoration = GuiItem.decoration(itemStack, plugin);
+
+        for (int cell = 0; cell < items.length; cell++) {
+            if (items[cell] == null) {
+                items[cell] = decoration;
             }
         }
+
+        markModified();
+    }
+
+    /**
+     * Fills all empty space in the pane with a single decoration of the given {@code itemStack}, see
+     * {@link #fillWithDecoration(ItemStack, Plugin)}.
+     *
+     * @param itemStack the {@link ItemStack} to fill the empty space with
+     * @since 3.4.0
+     */
+    public void fillWithDecoration(final @NonNull ItemStack itemStack) {
+        fillWithDecoration(itemStack, JavaPlugin.getProvidingPlugin(StaticPane.class));
     }
 
     /**
@@ -347,14 +410,62 @@ public class StaticPane extends Pane implements Flippable, Rotatable {
         this.fillWith(itemStack, null);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The items are returned in the order of their position, from the top left to the bottom right, with the horizontal
+     * axis taking priority, followed by the items outside of this pane.
+     *
+     * @return {@inheritDoc}
+     * @since 3.0.0
+     */
     @Override
     public @NonNull Collection<GuiItem> getItems() {
-        return items.values();
+        final List<GuiItem> items = getItemsInside();
+
+        items.addAll(outsideItems.values());
+
+        return items;
     }
 
     @Override
     public void clear() {
-        items.clear();
+        Arrays.fill(items, null);
+        outsideItems.clear();
+
+        markModified();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Items keep their x and y coordinates. Items that no longer fit within this pane are kept, but aren't shown until
+     * they fit again.
+     *
+     * @param length {@inheritDoc}
+     * @since 3.0.0
+     */
+    @Override
+    public void setLength(final int length) {
+        resize(length, height);
+
+        super.setLength(length);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Items keep their x and y coordinates. Items that no longer fit within this pane are kept, but aren't shown until
+     * they fit again.
+     *
+     * @param height {@inheritDoc}
+     * @since 3.0.0
+     */
+    @Override
+    public void setHeight(final int height) {
+        resize(length, height);
+
+        super.setHeight(height);
     }
 
     @Contract(pure = true)
@@ -366,11 +477,15 @@ public class StaticPane extends Pane implements Flippable, Rotatable {
     @Override
     public void flipHorizontally(final boolean flipHorizontally) {
         this.flipHorizontally = flipHorizontally;
+
+        markModified();
     }
 
     @Override
     public void flipVertically(final boolean flipVertically) {
         this.flipVertically = flipVertically;
+
+        markModified();
     }
 
     @Contract(pure = true)
@@ -389,6 +504,8 @@ public class StaticPane extends Pane implements Flippable, Rotatable {
         }
 
         this.rotation = rotation % 360;
+
+        markModified();
     }
 
     @Contract(pure = true)
@@ -403,4 +520,106 @@ public class StaticPane extends Pane implements Flippable, Rotatable {
         return flipVertically;
     }
 
+    /**
+     * Gets the items inside this pane, in the order of their position.
+     *
+     * @return the items inside this pane
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    private @NonNull List<GuiItem> getItemsInside() {
+        final List<GuiItem> items = new ArrayList<>();
+
+        for (final GuiItem item : this.items) {
+            if (item != null) {
+                items.add(item);
+            }
+        }
+
+        return items;
+    }
+
+    /**
+     * Gets the cell of the specified slot in this pane.
+     *
+     * @param slot the slot
+     * @return the cell, or -1 if the slot is outside of this pane
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    private int getCell(final @NonNull Slot slot) {
+        return getCell(slot, length, height);
+    }
+
+    /**
+     * Gets the cell of the specified slot in a pane of the specified size.
+     *
+     * @param slot   the slot
+     * @param length the length of the pane
+     * @param height the height of the pane
+     * @return the cell, or -1 if the slot is outside of the pane
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    private static int getCell(final @NonNull Slot slot, final int length, final int height) {
+        if (length == 0) {
+            return -1;
+        }
+
+        final int x = slot.getX(length);
+        final int y = slot.getY(length);
+
+        if (x < 0 || x >= length || y < 0 || y >= height) {
+            return -1;
+        }
+
+        return y * length + x;
+    }
+
+    /**
+     * Moves the items into storage for the specified size, keeping their x and y coordinates. Items that no longer fit
+     * are kept outside of this pane, and items outside of this pane that fit now are moved in.
+     *
+     * @param newLength the new length
+     * @param newHeight the new height
+     * @since 3.4.0
+     */
+    private void resize(final int newLength, final int newHeight) {
+        if (newLength < 0 || newHeight < 0) {
+            throw new IllegalArgumentException("Length and height should be non-negative");
+        }
+
+        final GuiItem[] resized = new GuiItem[newLength * newHeight];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < length; x++) {
+                final GuiItem item = items[y * length + x];
+
+                if (item == null) {
+                    continue;
+                }
+
+                if (x < newLength && y < newHeight) {
+                    resized[y * newLength + x] = item;
+                } else {
+                    outsideItems.put(Slot.fromXY(x, y), item);
+                }
+            }
+        }
+
+        final Iterator<Map.Entry<Slot, GuiItem>> iterator = outsideItems.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            final Map.Entry<Slot, GuiItem> entry = iterator.next();
+            final int cell = getCell(entry.getKey(), newLength, newHeight);
+
+            if (cell >= 0 && resized[cell] == null) {
+                resized[cell] = entry.getValue();
+                iterator.remove();
+            }
+        }
+
+        this.items = resized;
+    }
+
 }
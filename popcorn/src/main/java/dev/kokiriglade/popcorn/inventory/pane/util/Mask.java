@@ -15,10 +15,35 @@ import java.util.Arrays;
 public class Mask {
 
     /**
-     * A two-dimensional array of booleans indicating which slots are 'enabled' and which ones are 'disabled'. This
-     * two-dimensional array is constructed in a row-major order fashion.
+     * The amount of bits in a word of {@link #rows}
      */
-    private final boolean[][] mask;
+    private static final int WORD_SIZE = Long.SIZE;
+
+    /**
+     * The rows of this mask as bit sets, indicating which slots are 'enabled' and which ones are 'disabled'. The slot in
+     * column {@code x} of a row is represented by bit {@code x % 64} of word {@code x / 64} of that row.
+     */
+    private final long[][] rows;
+
+    /**
+     * The length of this mask
+     */
+    private final int length;
+
+    /**
+     * The amount of enabled slots in each row
+     */
+    private final int[] enabledInRows;
+
+    /**
+     * The amount of enabled slots in each column
+     */
+    private final int[] enabledInColumns;
+
+    /**
+     * The amount of enabled slots in this mask
+     */
+    private final int enabledSlots;
 
     /**
      * Creates a mask based on the strings provided. Each string is a row for the mask and each character is a cell of
@@ -33,39 +58,85 @@ public class Mask {
      * @since 3.0.0
      */
     public Mask(final @NonNull String... mask) {
-        this.mask = new boolean[mask.length][mask.length == 0 ? 0 : mask[0].length()];
+        this(parse(mask), mask.length == 0 ? 0 : mask[0].length());
+    }
 
-        for (int row = 0; row < mask.length; row++) {
-            final int length = mask[row].length();
+    /**
+     * Creates a mask based on the rows provided. Each row is a bit set in the format of {@link #rows}. The rows are not
+     * copied.
+     *
+     * @param rows   the rows of the mask
+     * @param length the length of the mask
+     * @since 3.0.0
+     */
+    private Mask(final long[][] rows, final int length) {
+        this.rows = rows;
+        this.length = length;
+        this.enabledInRows = new int[rows.length];
+        this.enabledInColumns = new int[length];
+
+        int enabledSlots = 0;
+
+        for (int row = 0; row < rows.length; row++) {
+            for (final long word : rows[row]) {
+                this.enabledInRows[row] += Long.bitCount(word);
+            }
+
+            for (int column = 0; column < length; column++) {
+                if (isEnabled(column, row)) {
+                    this.enabledInColumns[column]++;
+                }
+            }
+
+            enabledSlots += this.enabledInRows[row];
+        }
+
+        this.enabledSlots = enabledSlots;
+    }
+
+    /**
+     * Parses the strings of a mask into rows in the format of {@link #rows}.
+     *
+     * @param mask the strings, as specified in {@link #Mask(String...)}
+     * @return the rows
+     * @throws IllegalArgumentException when a string contains an illegal character or when strings have different
+     *                                  lengths
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    private static long @NonNull [] @NonNull [] parse(final @NonNull String @NonNull [] mask) {
+        final int length = mask.length == 0 ? 0 : mask[0].length();
+        final long[][] rows = new long[mask.length][wordCount(length)];
 
-            if (length != this.mask[row].length) {
+        for (int row = 0; row < mask.length; row++) {
+            if (mask[row].length() != length) {
                 throw new IllegalArgumentException("Lengths of each string should be equal");
             }
 
             for (int column = 0; column < length; column++) {
                 final char character = mask[row].charAt(column);
 
-                if (character == '0') {
-                    this.mask[row][column] = false;
-                } else if (character == '1') {
-                    this.mask[row][column] = true;
-                } else {
+                if (character == '1') {
+                    rows[row][column / WORD_SIZE] |= 1L << column;
+                } else if (character != '0') {
                     throw new IllegalArgumentException("Strings may only contain '0' and '1'");
                 }
             }
         }
+
+        return rows;
     }
 
     /**
-     * Creates a mask based on the two-dimensional boolean array provided. Each array is a row for the mask and each
-     * index is a cell of that row that indicates a slot for the mask. When the boolean is false, the slot will be
-     * considered 'disabled'; when the boolean is true, the slot will be considered 'enabled'.
+     * Gets the amount of words needed to store a row of the specified length.
      *
-     * @param mask a two-dimensional boolean array of booleans that represent this mask
-     * @since 3.0.0
+     * @param length the length of the row
+     * @return the amount of words
+     * @since 3.4.0
      */
-    private Mask(final boolean[][] mask) {
-        this.mask = mask;
+    @Contract(pure = true)
+    private static int wordCount(final int length) {
+        return (length + WORD_SIZE - 1) / WORD_SIZE;
     }
 
     /**
@@ -75,17 +146,31 @@ public class Mask {
      * @since 3.0.0
      */
     public int amountOfEnabledSlots() {
-        int amount = 0;
+        return enabledSlots;
+    }
 
-        for (final boolean[] row : mask) {
-            for (final boolean cell : row) {
-                if (cell) {
-                    amount++;
-                }
-            }
-        }
+    /**
+     * Returns the amount of slots in the specified row of this mask that are 'enabled'.
+     *
+     * @param index the row index
+     * @return amount of enabled slots in the row
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public int amountOfEnabledSlotsInRow(final int index) {
+        return enabledInRows[index];
+    }
 
-        return amount;
+    /**
+     * Returns the amount of slots in the specified column of this mask that are 'enabled'.
+     *
+     * @param index the column index
+     * @return amount of enabled slots in the column
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public int amountOfEnabledSlotsInColumn(final int index) {
+        return enabledInColumns[index];
     }
 
     /**
@@ -98,10 +183,10 @@ public class Mask {
      * @since 3.0.0
      */
     public boolean[] getColumn(final int index) {
-        final boolean[] column = new boolean[mask.length];
+        final boolean[] column = new boolean[getHeight()];
 
         for (int i = 0; i < getHeight(); i++) {
-            column[i] = mask[i][index];
+            column[i] = isEnabled(index, i);
         }
 
         return column;
@@ -117,9 +202,13 @@ public class Mask {
      * @since 3.0.0
      */
     public boolean[] getRow(final int index) {
-        final boolean[] row = mask[index];
+        final boolean[] row = new boolean[getLength()];
 
-        return Arrays.copyOf(row, row.length);
+        for (int i = 0; i < getLength(); i++) {
+            row[i] = isEnabled(i, index);
+        }
+
+        return row;
     }
 
     /**
@@ -132,7 +221,11 @@ public class Mask {
      * @since 3.0.0
      */
     public boolean isEnabled(final int x, final int y) {
-        return mask[y][x];
+        if (x < 0 || x >= length) {
+            throw new ArrayIndexOutOfBoundsException(x);
+        }
+
+        return (rows[y][x / WORD_SIZE] & 1L << x) != 0;
     }
 
     /**
@@ -142,7 +235,7 @@ public class Mask {
      * @since 3.0.0
      */
     public int getLength() {
-        return mask[0].length;
+        return length;
     }
 
     /**
@@ -157,19 +250,17 @@ public class Mask {
      */
     @Contract(pure = true)
     public @NonNull Mask setLength(final int length) {
-        final boolean[][] newRows = new boolean[getHeight()][length];
-
-        for (int index = 0; index < mask.length; index++) {
-            final boolean[] newRow = new boolean[length];
+        final long[][] newRows = new long[getHeight()][wordCount(length)];
 
-            System.arraycopy(mask[index], 0, newRow, 0, Math.min(length, mask[index].length));
-
-            Arrays.fill(newRow, Math.min(length, mask[index].length), newRow.length, true);
-
-            newRows[index] = newRow;
+        for (int index = 0; index < getHeight(); index++) {
+            for (int column = 0; column < length; column++) {
+                if (column >= getLength() || isEnabled(column, index)) {
+                    newRows[index][column / WORD_SIZE] |= 1L << column;
+                }
+            }
         }
 
-        return new Mask(newRows);
+        return new Mask(newRows, length);
     }
 
     /**
@@ -179,7 +270,7 @@ public class Mask {
      * @since 3.0.0
      */
     public int getHeight() {
-        return mask.length;
+        return rows.length;
     }
 
     /**
@@ -194,19 +285,21 @@ public class Mask {
      */
     @Contract(pure = true)
     public @NonNull Mask setHeight(final int height) {
-        final boolean[][] newRows = new boolean[height][getLength()];
+        final long[][] newRows = new long[height][];
 
         for (int index = 0; index < Math.min(height, getHeight()); index++) {
-            System.arraycopy(mask[index], 0, newRows[index], 0, mask[index].length);
+            newRows[index] = rows[index].clone();
         }
 
         for (int index = Math.min(height, getHeight()); index < height; index++) {
-            newRows[index] = new boolean[getLength()];
+            newRows[index] = new long[wordCount(getLength())];
 
-            Arrays.fill(newRows[index], true);
+            for (int column = 0; column < getLength(); column++) {
+                newRows[index][column / WORD_SIZE] |= 1L << column;
+            }
         }
 
-        return new Mask(newRows);
+        return new Mask(newRows, getLength());
     }
 
     @Override
@@ -221,16 +314,22 @@ public class Mask {
 
         final Mask mask = (Mask) object;
 
-        return Arrays.deepEquals(this.mask, mask.mask);
+        return length == mask.length && Arrays.deepEquals(rows, mask.rows);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(mask);
+        return 31 * Arrays.deepHashCode(rows) + length;
     }
 
     @Override
     public String toString() {
+        final boolean[][] mask = new boolean[getHeight()][];
+
+        for (int row = 0; row < getHeight(); row++) {
+            mask[row] = getRow(row);
+        }
+
         return "Mask{" +
             "mask=" + Arrays.deepToString(mask) +
             '}';
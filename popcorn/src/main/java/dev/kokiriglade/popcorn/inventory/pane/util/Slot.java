@@ -4,8 +4,6 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.jetbrains.annotations.Contract;
 
-import java.util.Objects;
-
 /**
  * A slot represents a position in some type of container. Implementors of this class represent slots in different ways.
  *
@@ -110,7 +108,7 @@ public interface Slot {
 
         @Override
         public int hashCode() {
-            return Objects.hash(x, y);
+            return 31 * x + y;
         }
 
     }
@@ -0,0 +1,155 @@
+package dev.kokiriglade.popcorn.inventory.util;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.jetbrains.annotations.Contract;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A precomputed flip and clockwise rotation of a two-dimensional grid. Cells are identified by their index,
+ * {@code y * length + x}. A transform maps each cell to the cell it ends up in, as a table, so transforming a cell
+ * doesn't allocate. The cell is flipped first and then rotated as per
+ * {@link GeometryUtil#processClockwiseRotation(int, int, int, int, int)}.
+ * <p>
+ * Transforms are immutable and shared: {@link #of(int, int, int, boolean, boolean)} returns the same transform for
+ * the same shape.
+ *
+ * @since 3.4.0
+ */
+public final class GeometryTransform {
+
+    /**
+     * The transforms that have been created, by the key of their shape
+     */
+    private static final @NonNull Map<Long, GeometryTransform> TRANSFORMS = new ConcurrentHashMap<>();
+
+    /**
+     * The length of the grid
+     */
+    private final int length;
+
+    /**
+     * The height of the grid
+     */
+    private final int height;
+
+    /**
+     * For each cell, the cell it is transformed to, or -1 if it ends up outside the grid
+     */
+    private final int @NonNull [] targets;
+
+    /**
+     * Creates a new transform
+     *
+     * @param length           the length of the grid
+     * @param height           the height of the grid
+     * @param rotation         the clockwise rotation in degrees
+     * @param flipHorizontally whether the grid is flipped horizontally
+     * @param flipVertically   whether the grid is flipped vertically
+     * @since 3.4.0
+     */
+    private GeometryTransform(final int length, final int height, final int rotation, final boolean flipHorizontally,
+                              final boolean flipVertically) {
+        this.length = length;
+        this.height = height;
+        this.targets = new int[length * height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < length; x++) {
+                final int flippedX = flipHorizontally ? length - x - 1 : x;
+                final int flippedY = flipVertically ? height - y - 1 : y;
+
+                final int newX;
+                final int newY;
+
+                if (rotation == 90) {
+                    newX = height - 1 - flippedY;
+                    newY = flippedX;
+                } else if (rotation == 180) {
+                    newX = length - 1 - flippedX;
+                    newY = height - 1 - flippedY;
+                } else if (rotation == 270) {
+                    newX = flippedY;
+                    newY = length - 1 - flippedX;
+                } else {
+                    newX = flippedX;
+                    newY = flippedY;
+                }
+
+                final boolean inBounds = newX >= 0 && newX < length && newY >= 0 && newY < height;
+
+                this.targets[y * length + x] = inBounds ? newY * length + newX : -1;
+            }
+        }
+    }
+
+    /**
+     * Gets the transform for the specified shape. Rotations other than 90, 180 and 270 degrees leave the grid as is,
+     * like {@link GeometryUtil#processClockwiseRotation(int, int, int, int, int)}.
+     *
+     * @param length           the length of the grid
+     * @param height           the height of the grid
+     * @param rotation         the clockwise rotation in degrees
+     * @param flipHorizontally whether the grid is flipped horizontally
+     * @param flipVertically   whether the grid is flipped vertically
+     * @return the transform
+     * @throws IllegalArgumentException if the length or height is negative
+     * @since 3.4.0
+     */
+    public static @NonNull GeometryTransform of(final int length, final int height, final int rotation,
+                                                final boolean flipHorizontally, final boolean flipVertically) {
+        if (length < 0 || height < 0) {
+            throw new IllegalArgumentException("Sizes must be greater or equal to zero");
+        }
+
+        final int normalizedRotation = rotation == 90 || rotation == 180 || rotation == 270 ? rotation : 0;
+
+        final long key = (long) length << 32 | (long) height << 4 | (long) (normalizedRotation / 90) << 2 |
+            (flipHorizontally ? 2 : 0) | (flipVertically ? 1 : 0);
+
+        return TRANSFORMS.computeIfAbsent(key, ignored ->
+            new GeometryTransform(length, height, normalizedRotation, flipHorizontally, flipVertically));
+    }
+
+    /**
+     * Gets the cell the specified cell is transformed to.
+     *
+     * @param x the x coordinate of the cell
+     * @param y the y coordinate of the cell
+     * @return the index of the transformed cell, or -1 if the cell is outside the grid or is transformed to outside
+     * the grid
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public int apply(final int x, final int y) {
+        if (x < 0 || x >= length || y < 0 || y >= height) {
+            return -1;
+        }
+
+        return targets[y * length + x];
+    }
+
+    /**
+     * Gets the length of the grid this transform applies to
+     *
+     * @return the length
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the height of the grid this transform applies to
+     *
+     * @return the height
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public int getHeight() {
+        return height;
+    }
+
+}
@@ -0,0 +1,51 @@
+package dev.kokiriglade.popcorn.inventory.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A global, monotonically increasing clock used to stamp modifications to panes and items. A renderer remembers the
+ * time at which it last rendered and can then ask whether anything was modified since, without having to compare any
+ * contents.
+ *
+ * @since 3.4.0
+ */
+@ApiStatus.Internal
+public final class ModificationClock {
+
+    /**
+     * The current time of the clock
+     */
+    private static final AtomicLong TIME = new AtomicLong();
+
+    /**
+     * A private constructor to prevent construction.
+     */
+    private ModificationClock() {
+    }
+
+    /**
+     * Advances the clock and returns the new time. The returned time is strictly greater than any time returned by
+     * {@link #now()} before this call.
+     *
+     * @return the new time
+     * @since 3.4.0
+     */
+    public static long tick() {
+        return TIME.incrementAndGet();
+    }
+
+    /**
+     * Gets the current time of the clock, without advancing it.
+     *
+     * @return the current time
+     * @since 3.4.0
+     */
+    @Contract(pure = true)
+    public static long now() {
+        return TIME.get();
+    }
+
+}